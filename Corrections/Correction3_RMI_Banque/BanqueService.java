@@ -7,4 +7,19 @@ public interface BanqueService extends Remote {
     void retrait(String numero, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException;
     double getSolde(String numero) throws RemoteException, CompteInexistantException;
     void virement(String from, String to, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException;
-}
\ No newline at end of file
+
+    // Variantes sans exception : les échecs métier sont renvoyés sous forme de CodeResultat
+    CodeResultat tenterDepot(String numero, double montant) throws RemoteException;
+    CodeResultat tenterRetrait(String numero, double montant) throws RemoteException;
+    CodeResultat tenterVirement(String from, String to, double montant) throws RemoteException;
+
+    // Variantes idempotentes : un appel rejoué avec le même idOperation renvoie le résultat
+    // d'origine sans ré-exécuter l'opération (idOperation doit être unique, un UUID par exemple)
+    CodeResultat tenterDepot(String idOperation, String numero, double montant) throws RemoteException;
+    CodeResultat tenterRetrait(String idOperation, String numero, double montant) throws RemoteException;
+    CodeResultat tenterVirement(String idOperation, String from, String to, double montant) throws RemoteException;
+
+    // Flux des modifications de solde, utilisé par exemple par CacheSoldes pour invalider ses entrées
+    void abonner(EcouteurSolde ecouteur) throws RemoteException;
+    void desabonner(EcouteurSolde ecouteur) throws RemoteException;
+}
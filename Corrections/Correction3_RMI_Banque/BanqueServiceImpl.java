@@ -2,9 +2,30 @@ import java.rmi.server.UnicastRemoteObject;
 import java.rmi.RemoteException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class BanqueServiceImpl extends UnicastRemoteObject implements BanqueService {
+public class BanqueServiceImpl extends UnicastRemoteObject implements BanqueShard, AutoCloseable {
     private final Map<String, Double> comptes = new ConcurrentHashMap<>();
+    // Mouvements préparés (phase 1) en attente de validation ou d'annulation, par identifiant de transaction
+    private final Map<String, Mouvement> enAttente = new ConcurrentHashMap<>();
+    private final JournalAudit audit = new JournalAudit(10_000);
+    private final CacheIdempotence idempotence = new CacheIdempotence(100_000, 10 * 60 * 1000);
+    private final FluxSoldes flux = new FluxSoldes(10);
+    // Temps d'attente du verrou sur comptes, par type d'opération
+    private final HistogrammeLatence attenteRetrait = new HistogrammeLatence();
+    private final HistogrammeLatence attenteVirement = new HistogrammeLatence();
+    private final HistogrammeLatence attenteDeuxPhases = new HistogrammeLatence();
+
+    // Une réservation de débit restée préparée au-delà de cette durée (coordinateur disparu, annulation
+    // perdue) est annulée ; elle reste bien inférieure à la durée de vie du cache d'idempotence
+    private static final long DUREE_RESERVATION_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private final AtomicLong prochainBalayage = new AtomicLong(System.nanoTime());
+    // Réservations expirées, par txId : valider doit pouvoir répondre au coordinateur retardataire
+    private static final long DUREE_MEMOIRE_EXPIRATIONS_NANOS = TimeUnit.HOURS.toNanos(1);
+    private final Map<String, Long> expirees = new ConcurrentHashMap<>();
+
+    private record Mouvement(String numero, double montant, long prepareLe) {}
 
     public BanqueServiceImpl() throws RemoteException {
         super();
@@ -13,53 +34,239 @@ public class BanqueServiceImpl extends UnicastRemoteObject implements BanqueServ
     @Override
     public void creerCompte(String numero) throws RemoteException {
         comptes.putIfAbsent(numero, 0.0);
-        System.out.println("[SERVEUR] Compte créé : " + numero);
+        audit.enregistrer("creerCompte", numero, null, 0.0, CodeResultat.OK);
     }
 
     @Override
     public void depot(String numero, double montant) throws RemoteException, CompteInexistantException {
-        verifierCompte(numero);
-        comptes.computeIfPresent(numero, (k, v) -> v + montant);
-        System.out.println("[SERVEUR] Dépôt de " + montant + " sur " + numero);
+        if (tenterDepot(numero, montant) == CodeResultat.COMPTE_INEXISTANT) {
+            throw new CompteInexistantException("Compte non trouvé : " + numero);
+        }
     }
 
     @Override
     public void retrait(String numero, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException {
-        verifierCompte(numero);
-        synchronized (comptes) {
-            double solde = comptes.get(numero);
-            if (solde < montant) {
-                throw new SoldeInsuffisantException("Solde insuffisant pour le retrait");
-            }
-            comptes.put(numero, solde - montant);
-        }
-        System.out.println("[SERVEUR] Retrait de " + montant + " sur " + numero);
+        tenterRetrait(numero, montant).leverSiEchec(numero, "retrait");
     }
 
     @Override
     public double getSolde(String numero) throws RemoteException, CompteInexistantException {
-        verifierCompte(numero);
-        return comptes.get(numero);
+        expirerReservations();
+        Double solde = comptes.get(numero);
+        if (solde == null) {
+            throw new CompteInexistantException("Compte non trouvé : " + numero);
+        }
+        return solde;
     }
 
     @Override
     public void virement(String from, String to, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException {
-        verifierCompte(from);
-        verifierCompte(to);
+        tenterVirement(from, to, montant).leverSiEchec(from + " ou " + to, "virement");
+    }
+
+    @Override
+    public CodeResultat tenterDepot(String numero, double montant) {
+        CodeResultat resultat = comptes.computeIfPresent(numero, (k, v) -> v + montant) != null
+            ? CodeResultat.OK : CodeResultat.COMPTE_INEXISTANT;
+        if (resultat == CodeResultat.OK) {
+            flux.publier(numero);
+        }
+        audit.enregistrer("depot", numero, null, montant, resultat);
+        return resultat;
+    }
+
+    @Override
+    public CodeResultat tenterRetrait(String numero, double montant) {
+        CodeResultat resultat;
+        long debutAttente = System.nanoTime();
+        synchronized (comptes) {
+            attenteRetrait.enregistrer(System.nanoTime() - debutAttente);
+            resultat = debiter(numero, montant);
+        }
+        audit.enregistrer("retrait", numero, null, montant, resultat);
+        return resultat;
+    }
+
+    @Override
+    public CodeResultat tenterVirement(String from, String to, double montant) {
+        CodeResultat resultat;
+        long debutAttente = System.nanoTime();
         synchronized (comptes) {
-            double soldeFrom = comptes.get(from);
-            if (soldeFrom < montant) {
-                throw new SoldeInsuffisantException("Solde insuffisant pour le virement");
+            attenteVirement.enregistrer(System.nanoTime() - debutAttente);
+            if (!comptes.containsKey(to)) {
+                resultat = CodeResultat.COMPTE_INEXISTANT;
+            } else {
+                resultat = debiter(from, montant);
+                if (resultat == CodeResultat.OK) {
+                    comptes.put(to, comptes.get(to) + montant);
+                    flux.publier(to);
+                }
             }
-            comptes.put(from, soldeFrom - montant);
-            comptes.put(to, comptes.get(to) + montant);
         }
-        System.out.println("[SERVEUR] Virement de " + montant + " de " + from + " vers " + to);
+        audit.enregistrer("virement", from, to, montant, resultat);
+        return resultat;
+    }
+
+    @Override
+    public CodeResultat tenterDepot(String idOperation, String numero, double montant) throws RemoteException {
+        return idempotence.executer(idOperation, () -> tenterDepot(numero, montant));
+    }
+
+    @Override
+    public CodeResultat tenterRetrait(String idOperation, String numero, double montant) throws RemoteException {
+        return idempotence.executer(idOperation, () -> tenterRetrait(numero, montant));
+    }
+
+    @Override
+    public CodeResultat tenterVirement(String idOperation, String from, String to, double montant) throws RemoteException {
+        return idempotence.executer(idOperation, () -> tenterVirement(from, to, montant));
+    }
+
+    @Override
+    public CodeResultat preparerDebit(String txId, boolean rejouable, String numero, double montant) throws RemoteException {
+        expirerReservations();
+        // Seul un virement rejouable passe par le cache : un txId aléatoire ne sera jamais rejoué
+        return rejouable ? idempotence.executer(txId, () -> reserverDebit(txId, numero, montant))
+            : reserverDebit(txId, numero, montant);
+    }
+
+    private CodeResultat reserverDebit(String txId, String numero, double montant) {
+        // Le montant est réservé dès la préparation : il n'est plus disponible pour un autre retrait
+        CodeResultat resultat;
+        long debutAttente = System.nanoTime();
+        synchronized (comptes) {
+            attenteDeuxPhases.enregistrer(System.nanoTime() - debutAttente);
+            resultat = debiter(numero, montant);
+        }
+        if (resultat == CodeResultat.OK) {
+            // Rejeu après expiration : nouvelle réservation, l'expiration précédente ne compte plus
+            expirees.remove(txId);
+            enAttente.put(txId, new Mouvement(numero, -montant, System.nanoTime()));
+        }
+        return resultat;
+    }
+
+    @Override
+    public CodeResultat preparerCredit(String txId, boolean rejouable, String numero, double montant) throws RemoteException {
+        expirerReservations();
+        return rejouable ? idempotence.executer(txId, () -> reserverCredit(txId, numero, montant))
+            : reserverCredit(txId, numero, montant);
     }
 
-    private void verifierCompte(String numero) throws CompteInexistantException {
+    private CodeResultat reserverCredit(String txId, String numero, double montant) {
         if (!comptes.containsKey(numero)) {
-            throw new CompteInexistantException("Compte non trouvé : " + numero);
+            return CodeResultat.COMPTE_INEXISTANT;
+        }
+        // Le crédit n'est appliqué qu'à la validation
+        enAttente.put(txId, new Mouvement(numero, montant, System.nanoTime()));
+        return CodeResultat.OK;
+    }
+
+    @Override
+    public boolean valider(String txId) throws RemoteException {
+        Mouvement m = enAttente.remove(txId);
+        if (m == null) {
+            // Déjà validé (rejeu) : rien à faire ; expiré : le débit a été rendu, le virement n'a pas lieu
+            return !expirees.containsKey(txId);
+        }
+        if (m.montant() > 0) {
+            long debutAttente = System.nanoTime();
+            synchronized (comptes) {
+                attenteDeuxPhases.enregistrer(System.nanoTime() - debutAttente);
+                comptes.merge(m.numero(), m.montant(), Double::sum);
+            }
+            flux.publier(m.numero());
+        }
+        audit.enregistrer(m.montant() > 0 ? "virement-credit" : "virement-debit", m.numero(), null, Math.abs(m.montant()), CodeResultat.OK);
+        return true;
+    }
+
+    @Override
+    public void annuler(String txId) throws RemoteException {
+        // Un rejeu après annulation doit préparer à nouveau, et non recevoir le résultat d'origine
+        idempotence.oublier(txId);
+        Mouvement m = enAttente.remove(txId);
+        if (m != null && m.montant() < 0) {
+            rendre(m, "virement-annule");
+        }
+    }
+
+    private void rendre(Mouvement m, String operation) {
+        long debutAttente = System.nanoTime();
+        synchronized (comptes) {
+            attenteDeuxPhases.enregistrer(System.nanoTime() - debutAttente);
+            comptes.merge(m.numero(), -m.montant(), Double::sum);
+        }
+        flux.publier(m.numero());
+        audit.enregistrer(operation, m.numero(), null, -m.montant(), CodeResultat.OK);
+    }
+
+    // Balayage au plus une fois par seconde, à l'occasion des appels : annule les réservations de débit
+    // trop anciennes. Les crédits préparés ne réservent aucun fonds et attendent leur validation.
+    // L'expiration est mémorisée avant le retrait du mouvement : entre valider et le balayage, un seul
+    // des deux obtient le mouvement, et un valider perdant voit toujours l'expiration.
+    private void expirerReservations() {
+        long maintenant = System.nanoTime();
+        long prevu = prochainBalayage.get();
+        if (maintenant - prevu < 0 || !prochainBalayage.compareAndSet(prevu, maintenant + 1_000_000_000L)) {
+            return;
+        }
+        for (Map.Entry<String, Mouvement> entree : enAttente.entrySet()) {
+            Mouvement m = entree.getValue();
+            if (m.montant() < 0 && maintenant - m.prepareLe() > DUREE_RESERVATION_NANOS) {
+                expirees.put(entree.getKey(), maintenant);
+                if (enAttente.remove(entree.getKey(), m)) {
+                    idempotence.oublier(entree.getKey());
+                    rendre(m, "virement-expire");
+                } else {
+                    // Validé ou annulé entre-temps
+                    expirees.remove(entree.getKey(), maintenant);
+                }
+            }
+        }
+        expirees.values().removeIf(expireeLe -> maintenant - expireeLe > DUREE_MEMOIRE_EXPIRATIONS_NANOS);
+    }
+
+    @Override
+    public void abonner(EcouteurSolde ecouteur) throws RemoteException {
+        flux.abonner(ecouteur);
+    }
+
+    @Override
+    public void desabonner(EcouteurSolde ecouteur) throws RemoteException {
+        flux.desabonner(ecouteur);
+    }
+
+    // Arrête les threads du journal d'audit et du flux de soldes (à appeler après unexportObject)
+    @Override
+    public void close() {
+        audit.close();
+        flux.close();
+    }
+
+    public JournalAudit getAudit() {
+        return audit;
+    }
+
+    public CacheIdempotence getIdempotence() {
+        return idempotence;
+    }
+
+    public Map<String, HistogrammeLatence> getAttentesVerrou() {
+        return Map.of("retrait", attenteRetrait, "virement", attenteVirement, "deuxPhases", attenteDeuxPhases);
+    }
+
+    // À appeler sous le verrou de comptes
+    private CodeResultat debiter(String numero, double montant) {
+        Double solde = comptes.get(numero);
+        if (solde == null) {
+            return CodeResultat.COMPTE_INEXISTANT;
+        }
+        if (solde < montant) {
+            return CodeResultat.SOLDE_INSUFFISANT;
         }
+        comptes.put(numero, solde - montant);
+        flux.publier(numero);
+        return CodeResultat.OK;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+import java.rmi.RemoteException;
+
+/**
+ * Shard du service bancaire : en plus des opérations classiques, il expose
+ * les deux phases (préparation puis validation/annulation) utilisées par
+ * RouteurBanque pour un virement entre deux shards.
+ * Une préparation rejouable est idempotente par txId : un virement rejoué ne réserve pas deux fois.
+ * annuler oublie le txId, si bien qu'un rejeu après annulation prépare à nouveau.
+ * valider renvoie false si la réservation a expiré avant la décision du coordinateur : le débit
+ * a été rendu au compte, et le coordinateur doit annuler l'autre côté du virement.
+ */
+public interface BanqueShard extends BanqueService {
+    CodeResultat preparerDebit(String txId, boolean rejouable, String numero, double montant) throws RemoteException;
+    CodeResultat preparerCredit(String txId, boolean rejouable, String numero, double montant) throws RemoteException;
+    boolean valider(String txId) throws RemoteException;
+    void annuler(String txId) throws RemoteException;
+}
@@ -0,0 +1,88 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lectures de soldes de quelques comptes très sollicités, pendant qu'un écrivain les modifie :
+ * compare le débit de getSolde en appel distant direct et via CacheSoldes, et rapporte
+ * le taux de succès et l'obsolescence du cache.
+ * Usage : BenchmarkCacheSoldes [threads lecteurs] [durée en s] [écritures/s]
+ */
+public class BenchmarkCacheSoldes {
+    private static final String[] COMPTES_CHAUDS = {"C0", "C1", "C2", "C3", "C4", "C5", "C6", "C7", "C8", "C9"};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int duree = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int ecrituresParSeconde = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        BanqueServiceImpl impl = new BanqueServiceImpl();
+        Registry registry = LocateRegistry.createRegistry(21199);
+        registry.rebind("BanqueService", impl);
+        BanqueService service = (BanqueService) LocateRegistry.getRegistry("localhost", 21199).lookup("BanqueService");
+        for (String compte : COMPTES_CHAUDS) {
+            service.creerCompte(compte);
+        }
+
+        Thread ecrivain = new Thread(() -> {
+            try {
+                while (true) {
+                    service.depot(COMPTES_CHAUDS[ThreadLocalRandom.current().nextInt(COMPTES_CHAUDS.length)], 1.0);
+                    Thread.sleep(1000 / Math.max(1, ecrituresParSeconde));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        ecrivain.setDaemon(true);
+        ecrivain.start();
+
+        console.printf("direct : %,.0f lectures/s%n", mesurer(threads, duree, service::getSolde));
+
+        CacheSoldes cache = new CacheSoldes(service);
+        console.printf("cache  : %,.0f lectures/s%n", mesurer(threads, duree, cache::getSolde));
+        console.println(cache);
+
+        cache.fermer();
+        UnicastRemoteObject.unexportObject(impl, true);
+        impl.close();
+        System.exit(0);
+    }
+
+    private interface Lecture {
+        double lire(String numero) throws Exception;
+    }
+
+    private static double mesurer(int threads, int duree, Lecture lecture) throws InterruptedException {
+        LongAdder lectures = new LongAdder();
+        long fin = System.nanoTime() + duree * 1_000_000_000L;
+        Thread[] lecteurs = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            lecteurs[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < fin) {
+                        lecture.lire(COMPTES_CHAUDS[rnd.nextInt(COMPTES_CHAUDS.length)]);
+                        lectures.increment();
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            lecteurs[t].start();
+        }
+        for (Thread lecteur : lecteurs) {
+            lecteur.join();
+        }
+        return lectures.sum() / (double) duree;
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simule des clients qui rejouent une partie de leurs dépôts et rapporte le taux de succès
+ * du cache d'idempotence, sa mémoire (estimée et mesurée) et la cohérence du solde final.
+ * Usage : BenchmarkIdempotence [opérations] [pourcentage de rejeux]
+ */
+public class BenchmarkIdempotence {
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int pourcentageRejeux = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long memoireAvant = runtime.totalMemory() - runtime.freeMemory();
+
+        BanqueServiceImpl banque = new BanqueServiceImpl();
+        banque.creerCompte("C1");
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long depotsUniques = 0;
+        String precedent = null;
+        long debut = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            String idOperation;
+            if (precedent != null && rnd.nextInt(100) < pourcentageRejeux) {
+                idOperation = precedent;
+            } else {
+                idOperation = UUID.randomUUID().toString();
+                depotsUniques++;
+            }
+            banque.tenterDepot(idOperation, "C1", 1.0);
+            precedent = idOperation;
+        }
+        long duree = System.nanoTime() - debut;
+
+        System.gc();
+        long memoireApres = runtime.totalMemory() - runtime.freeMemory();
+        CacheIdempotence cache = banque.getIdempotence();
+
+        console.printf("%d opérations en %d ms (%.0f ns/op)%n", operations, duree / 1_000_000, (double) duree / operations);
+        console.println(cache);
+        console.printf("mémoire estimée : %d Ko, mesurée (tas) : %d Ko%n",
+            cache.getMemoireEstimee() / 1024, (memoireApres - memoireAvant) / 1024);
+        console.printf("solde final : %.0f, dépôts uniques : %d%n", banque.getSolde("C1"), depotsUniques);
+        UnicastRemoteObject.unexportObject(banque, true);
+        banque.close();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compare, via RMI, la latence des retraits selon que les refus sont signalés par exception
+ * (retrait) ou par code résultat (tenterRetrait), pour une charge majoritairement rejetée.
+ * Usage : BenchmarkRejets [appels] [pourcentage de refus]
+ */
+public class BenchmarkRejets {
+    public static void main(String[] args) throws Exception {
+        int appels = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int pourcentageRefus = args.length > 1 ? Integer.parseInt(args[1]) : 90;
+
+        PrintStream console = System.out;
+        // Le journal d'audit écrit sur la console : on le neutralise pendant la mesure
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        BanqueServiceImpl impl = new BanqueServiceImpl();
+        Registry registry = LocateRegistry.createRegistry(21099);
+        registry.rebind("BanqueService", impl);
+        // Passer par un stub du registre garantit un vrai appel distant, même dans la même JVM
+        BanqueService service = (BanqueService) LocateRegistry.getRegistry("localhost", 21099).lookup("BanqueService");
+        service.creerCompte("C1");
+        service.depot("C1", 1e12);
+
+        // Deux passes : la première sert de préchauffage du JIT
+        for (int passe = 0; passe < 2; passe++) {
+            long[] exceptions = mesurer(service, appels, pourcentageRefus, false);
+            long[] codes = mesurer(service, appels, pourcentageRefus, true);
+            if (passe == 1) {
+                console.printf("%d%% de refus, %d appels%n", pourcentageRefus, appels);
+                afficher(console, "exceptions", exceptions);
+                afficher(console, "codes     ", codes);
+            }
+        }
+
+        UnicastRemoteObject.unexportObject(impl, true);
+        impl.close();
+        UnicastRemoteObject.unexportObject(registry, true);
+        System.exit(0);
+    }
+
+    private static long[] mesurer(BanqueService service, int appels, int pourcentageRefus, boolean codes) throws RemoteException {
+        long[] latences = new long[appels];
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        for (int i = 0; i < appels; i++) {
+            // Un montant démesuré ou un compte inconnu provoque un refus
+            boolean refus = rnd.nextInt(100) < pourcentageRefus;
+            String compte = refus && rnd.nextBoolean() ? "INCONNU" : "C1";
+            double montant = refus ? 1e15 : 1.0;
+            long debut = System.nanoTime();
+            if (codes) {
+                service.tenterRetrait(compte, montant);
+            } else {
+                try {
+                    service.retrait(compte, montant);
+                } catch (CompteInexistantException | SoldeInsuffisantException e) {
+                    // refus attendu
+                }
+            }
+            latences[i] = System.nanoTime() - debut;
+        }
+        Arrays.sort(latences);
+        return latences;
+    }
+
+    private static void afficher(PrintStream console, String libelle, long[] latences) {
+        double moyenne = Arrays.stream(latences).average().orElse(0) / 1000.0;
+        console.printf("  %s : moyenne %.1f µs, p50 %.1f µs, p99 %.1f µs%n", libelle, moyenne,
+            latences[latences.length / 2] / 1000.0, latences[(int) (latences.length * 0.99)] / 1000.0);
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesure le débit (opérations/s) du routeur selon le nombre de shards lancés dans la JVM.
+ * Usage : BenchmarkShards [threads] [durée en s] [comptes]
+ */
+public class BenchmarkShards {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int duree = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int nbComptes = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        PrintStream console = System.out;
+        // Les traces du serveur fausseraient la mesure
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        int port = 21000;
+        for (int nbShards : new int[]{1, 2, 4, 8}) {
+            ServeurBanqueRMI.Shard[] shards = new ServeurBanqueRMI.Shard[nbShards];
+            for (int i = 0; i < nbShards; i++) {
+                shards[i] = ServeurBanqueRMI.demarrerShard(port++);
+            }
+            RouteurBanque routeur = RouteurBanque.connecter("localhost", port - nbShards, nbShards);
+
+            String[] comptes = new String[nbComptes];
+            for (int i = 0; i < nbComptes; i++) {
+                comptes[i] = "C" + i;
+                routeur.creerCompte(comptes[i]);
+                routeur.depot(comptes[i], 1_000_000.0);
+            }
+
+            double opsParSeconde = mesurer(routeur, comptes, threads, duree);
+            console.printf("%d shard(s) : %,.0f ops/s%n", nbShards, opsParSeconde);
+
+            // Proxy instrumenté, service, registre et MBeans de chaque shard
+            for (ServeurBanqueRMI.Shard shard : shards) {
+                shard.arreter();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static double mesurer(RouteurBanque routeur, String[] comptes, int threads, int duree) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        long fin = System.nanoTime() + duree * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin) {
+                    String a = comptes[rnd.nextInt(comptes.length)];
+                    String b = comptes[rnd.nextInt(comptes.length)];
+                    try {
+                        int choix = rnd.nextInt(10);
+                        if (choix < 4) {
+                            routeur.depot(a, 10.0);
+                        } else if (choix < 7) {
+                            routeur.retrait(a, 10.0);
+                        } else if (choix < 9) {
+                            routeur.getSolde(a);
+                        } else {
+                            routeur.virement(a, b, 1.0);
+                        }
+                        operations.increment();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        return operations.sum() / (double) duree;
+    }
+}
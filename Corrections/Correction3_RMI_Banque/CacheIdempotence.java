@@ -0,0 +1,128 @@
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Mémorise le résultat des opérations déjà exécutées, par identifiant d'opération fourni
+ * par le client. Un appel rejoué (après un timeout par exemple) reçoit le résultat d'origine
+ * au lieu d'être exécuté une seconde fois.
+ *
+ * Le cache est borné en nombre d'entrées et chaque entrée expire après une durée fixe ;
+ * les entrées étant insérées dans l'ordre d'expiration, une simple file FIFO suffit à l'éviction.
+ */
+public class CacheIdempotence {
+    // Estimation grossière d'une entrée hors identifiant : nœud de map, entrée, future, nœud de file
+    private static final int OCTETS_PAR_ENTREE = 160;
+
+    private record Entree(String id, long expiration, CompletableFuture<CodeResultat> resultat) {}
+
+    private final Map<String, Entree> entrees = new ConcurrentHashMap<>();
+    private final Queue<Entree> ordreInsertion = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tailleFile = new AtomicInteger();
+    private final int capacite;
+    private final long dureeVieNanos;
+
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder octetsIdentifiants = new LongAdder();
+
+    public CacheIdempotence(int capacite, long dureeVieMillis) {
+        this.capacite = capacite;
+        this.dureeVieNanos = dureeVieMillis * 1_000_000L;
+    }
+
+    public CodeResultat executer(String idOperation, Supplier<CodeResultat> operation) {
+        long maintenant = System.nanoTime();
+        Entree nouvelle = new Entree(idOperation, maintenant + dureeVieNanos, new CompletableFuture<>());
+        while (true) {
+            Entree existante = entrees.putIfAbsent(idOperation, nouvelle);
+            if (existante == null) {
+                break;
+            }
+            if (existante.expiration() - maintenant > 0) {
+                succes.increment();
+                // Si l'appel d'origine est encore en cours, le rejeu attend son résultat
+                return existante.resultat().join();
+            }
+            // Entrée expirée pas encore évincée : on la remplace
+            if (entrees.replace(idOperation, existante, nouvelle)) {
+                break;
+            }
+        }
+        echecs.increment();
+        octetsIdentifiants.add(2L * idOperation.length());
+        ordreInsertion.add(nouvelle);
+        tailleFile.incrementAndGet();
+
+        try {
+            CodeResultat resultat = operation.get();
+            nouvelle.resultat().complete(resultat);
+            return resultat;
+        } catch (RuntimeException e) {
+            // Échec technique : l'opération n'est pas mémorisée et pourra être retentée
+            entrees.remove(idOperation, nouvelle);
+            nouvelle.resultat().completeExceptionally(e);
+            throw e;
+        } finally {
+            evincer(maintenant);
+        }
+    }
+
+    // Retire une opération du cache : son prochain rejeu sera exécuté à nouveau
+    public void oublier(String idOperation) {
+        entrees.remove(idOperation);
+    }
+
+    private void evincer(long maintenant) {
+        Entree tete;
+        while ((tete = ordreInsertion.peek()) != null
+                && (tailleFile.get() > capacite || tete.expiration() - maintenant <= 0)) {
+            Entree evincee = ordreInsertion.poll();
+            if (evincee == null) {
+                break;
+            }
+            tailleFile.decrementAndGet();
+            octetsIdentifiants.add(-2L * evincee.id().length());
+            if (entrees.remove(evincee.id(), evincee)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public long getSucces() {
+        return succes.sum();
+    }
+
+    public long getEchecs() {
+        return echecs.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getTaille() {
+        return entrees.size();
+    }
+
+    public double getTauxSucces() {
+        long total = succes.sum() + echecs.sum();
+        return total == 0 ? 0.0 : (double) succes.sum() / total;
+    }
+
+    public long getMemoireEstimee() {
+        return (long) tailleFile.get() * OCTETS_PAR_ENTREE + octetsIdentifiants.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("idempotence : %d entrées, taux de succès %.1f%%, %d évictions, ~%d Ko",
+            getTaille(), getTauxSucces() * 100, getEvictions(), getMemoireEstimee() / 1024);
+    }
+}
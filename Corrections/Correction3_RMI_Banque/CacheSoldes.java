@@ -0,0 +1,131 @@
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de soldes côté client, invalidé par le flux de modifications du serveur :
+ * tant qu'un compte n'a pas changé, ses lectures ne quittent pas la JVM cliente.
+ * L'objet est exporté pour que le serveur puisse le rappeler.
+ *
+ * Le serveur retire un abonné au premier échec de rappel, sans que le client le sache. Chaque entrée
+ * n'est donc valable que pendant un bail (5 s par défaut) : au pire, une invalidation perdue laisse
+ * un solde obsolète pendant la durée du bail. À chaque bail écoulé, le cache renouvelle aussi son
+ * abonnement (sans effet s'il est toujours abonné), ce qui rétablit le flux après une coupure.
+ */
+public class CacheSoldes extends UnicastRemoteObject implements EcouteurSolde {
+    private static final long serialVersionUID = 1L;
+
+    private record Entree(double solde, long lueLe) {}
+
+    private final BanqueService service;
+    private final long bailNanos;
+    private final Map<String, Entree> soldes = new ConcurrentHashMap<>();
+    // Nombre d'invalidations reçues par compte, pour ne pas remettre en cache une valeur lue avant une invalidation
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder retardCumuleMillis = new LongAdder();
+    private final LongAccumulator retardMaxMillis = new LongAccumulator(Long::max, 0);
+    private final LongAdder expirations = new LongAdder();
+    private final AtomicLong prochainRenouvellement;
+
+    public CacheSoldes(BanqueService service) throws RemoteException {
+        this(service, 5000);
+    }
+
+    public CacheSoldes(BanqueService service, long bailMillis) throws RemoteException {
+        super();
+        this.service = service;
+        this.bailNanos = TimeUnit.MILLISECONDS.toNanos(bailMillis);
+        this.prochainRenouvellement = new AtomicLong(System.nanoTime() + bailNanos);
+        service.abonner(this);
+    }
+
+    public double getSolde(String numero) throws RemoteException, CompteInexistantException {
+        long maintenant = System.nanoTime();
+        renouvelerAbonnement(maintenant);
+        Entree entree = soldes.get(numero);
+        if (entree != null) {
+            if (maintenant - entree.lueLe() < bailNanos) {
+                succes.increment();
+                return entree.solde();
+            }
+            expirations.increment();
+        }
+        echecs.increment();
+        long version = versions.getOrDefault(numero, 0L);
+        double lu = service.getSolde(numero);
+        if (versions.getOrDefault(numero, 0L) == version) {
+            soldes.put(numero, new Entree(lu, maintenant));
+            // Une invalidation arrivée entre-temps l'emporte sur la valeur lue
+            if (versions.getOrDefault(numero, 0L) != version) {
+                soldes.remove(numero);
+            }
+        }
+        return lu;
+    }
+
+    // Un seul lecteur par bail refait l'abonnement ; un échec sera retenté au bail suivant
+    private void renouvelerAbonnement(long maintenant) throws RemoteException {
+        long prevu = prochainRenouvellement.get();
+        if (maintenant - prevu >= 0 && prochainRenouvellement.compareAndSet(prevu, maintenant + bailNanos)) {
+            service.abonner(this);
+        }
+    }
+
+    @Override
+    public void soldesModifies(Map<String, Long> changements) {
+        long maintenant = System.currentTimeMillis();
+        for (Map.Entry<String, Long> changement : changements.entrySet()) {
+            versions.merge(changement.getKey(), 1L, Long::sum);
+            soldes.remove(changement.getKey());
+            long retard = Math.max(0, maintenant - changement.getValue());
+            retardCumuleMillis.add(retard);
+            retardMaxMillis.accumulate(retard);
+            invalidations.increment();
+        }
+    }
+
+    public double getTauxSucces() {
+        long total = succes.sum() + echecs.sum();
+        return total == 0 ? 0.0 : (double) succes.sum() / total;
+    }
+
+    // Entrées trouvées mais dont le bail était écoulé
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    // Obsolescence : délai entre la modification côté serveur et la réception de l'invalidation
+    public double getRetardMoyenMillis() {
+        long n = invalidations.sum();
+        return n == 0 ? 0.0 : (double) retardCumuleMillis.sum() / n;
+    }
+
+    public long getRetardMaxMillis() {
+        return retardMaxMillis.get();
+    }
+
+    public void fermer() throws RemoteException {
+        service.desabonner(this);
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            // déjà désexporté
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache soldes : %d lectures, taux de succès %.1f%%, %d invalidations, %d baux expirés, obsolescence moyenne %.1f ms (max %d ms)",
+            succes.sum() + echecs.sum(), getTauxSucces() * 100, invalidations.sum(), expirations.sum(), getRetardMoyenMillis(), getRetardMaxMillis());
+    }
+}
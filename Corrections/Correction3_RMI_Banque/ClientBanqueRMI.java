@@ -1,5 +1,6 @@
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.util.UUID;
 
 public class ClientBanqueRMI {
     public static void main(String[] args) {
@@ -21,6 +22,23 @@ public class ClientBanqueRMI {
 
             System.out.println("[CLIENT] Solde C1001 : " + service.getSolde("C1001"));
             System.out.println("[CLIENT] Solde C2002 : " + service.getSolde("C2002"));
+
+            // Dépôt idempotent : rejouer le même idOperation (après un timeout par exemple) ne crédite qu'une fois
+            String idOperation = UUID.randomUUID().toString();
+            service.tenterDepot(idOperation, "C2002", 25.0);
+            service.tenterDepot(idOperation, "C2002", 25.0);
+            System.out.println("[CLIENT] Solde C2002 après dépôt rejoué : " + service.getSolde("C2002"));
+
+            // Lectures répétées servies par le cache local, invalidé par le flux du serveur
+            CacheSoldes soldes = new CacheSoldes(service);
+            for (int i = 0; i < 1000; i++) {
+                soldes.getSolde("C1001");
+            }
+            service.depot("C1001", 10.0);
+            Thread.sleep(100);
+            System.out.println("[CLIENT] Solde C1001 (cache) : " + soldes.getSolde("C1001"));
+            System.out.println("[CLIENT] " + soldes);
+            soldes.fermer();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,18 @@
+/**
+ * Résultat d'une opération bancaire. Les échecs métier attendus (compte absent, solde
+ * insuffisant) sont renvoyés sous forme de code, sans construire ni transporter d'exception.
+ */
+public enum CodeResultat {
+    OK,
+    COMPTE_INEXISTANT,
+    SOLDE_INSUFFISANT;
+
+    // Conversion vers les exceptions des méthodes historiques de BanqueService
+    public void leverSiEchec(String compte, String operation) throws CompteInexistantException, SoldeInsuffisantException {
+        switch (this) {
+            case COMPTE_INEXISTANT -> throw new CompteInexistantException("Compte non trouvé : " + compte);
+            case SOLDE_INSUFFISANT -> throw new SoldeInsuffisantException("Solde insuffisant pour le " + operation);
+            default -> { }
+        }
+    }
+}
@@ -1,7 +1,7 @@
-import java.rmi.RemoteException;
-
-public class CompteInexistantException extends RemoteException {
+// Exception métier (et non RemoteException) : RMI la transmet telle quelle au client au lieu de
+// l'envelopper dans une ServerException dont la pile d'appels serait capturée et sérialisée
+public class CompteInexistantException extends Exception {
     public CompteInexistantException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.Map;
+
+/**
+ * Abonné au flux des modifications de solde. Le serveur regroupe les changements et
+ * les pousse par lots : numéro de compte → horodatage (ms) de la première modification du lot.
+ */
+public interface EcouteurSolde extends Remote {
+    void soldesModifies(Map<String, Long> changements) throws RemoteException;
+}
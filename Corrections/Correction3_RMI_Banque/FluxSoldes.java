@@ -0,0 +1,74 @@
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Flux des modifications de solde côté serveur. Les opérations ne font que marquer le compte
+ * comme modifié ; un thread dédié envoie périodiquement un lot par abonné, si bien qu'un compte
+ * très sollicité ne produit qu'une notification par intervalle et qu'un abonné lent ne freine
+ * pas les opérations.
+ */
+public class FluxSoldes implements AutoCloseable {
+    private final CopyOnWriteArrayList<EcouteurSolde> ecouteurs = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> modifies = new ConcurrentHashMap<>();
+    private final long intervalleMillis;
+    private final Thread diffuseur;
+
+    public FluxSoldes(long intervalleMillis) {
+        this.intervalleMillis = intervalleMillis;
+        this.diffuseur = new Thread(this::diffuser, "flux-soldes");
+        diffuseur.setDaemon(true);
+        diffuseur.start();
+    }
+
+    // Sans effet pour un abonné déjà présent : un client peut renouveler son abonnement à tout moment
+    public void abonner(EcouteurSolde ecouteur) {
+        ecouteurs.addIfAbsent(ecouteur);
+    }
+
+    public void desabonner(EcouteurSolde ecouteur) {
+        ecouteurs.remove(ecouteur);
+    }
+
+    public void publier(String numero) {
+        if (!ecouteurs.isEmpty()) {
+            modifies.putIfAbsent(numero, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void close() {
+        diffuseur.interrupt();
+        ecouteurs.clear();
+    }
+
+    private void diffuser() {
+        try {
+            while (true) {
+                Thread.sleep(intervalleMillis);
+                if (modifies.isEmpty()) {
+                    continue;
+                }
+                Map<String, Long> lot = new HashMap<>();
+                for (String numero : modifies.keySet()) {
+                    Long horodatage = modifies.remove(numero);
+                    if (horodatage != null) {
+                        lot.put(numero, horodatage);
+                    }
+                }
+                for (EcouteurSolde ecouteur : ecouteurs) {
+                    try {
+                        ecouteur.soldesModifies(lot);
+                    } catch (RemoteException e) {
+                        // Abonné injoignable : on le retire du flux (il se réabonnera, voir CacheSoldes)
+                        ecouteurs.remove(ecouteur);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées en nanosecondes, sans verrou : chaque puissance de deux est découpée
+ * en 8 intervalles, soit une précision d'environ 12 % sur les percentiles.
+ */
+public class HistogrammeLatence implements HistogrammeLatenceMXBean {
+    private static final int SOUS_INTERVALLES = 8;
+    private static final int TAILLE = 61 * SOUS_INTERVALLES;
+
+    private final AtomicLongArray compteurs = new AtomicLongArray(TAILLE);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void enregistrer(long nanos) {
+        long v = Math.max(0, nanos);
+        compteurs.incrementAndGet(indice(v));
+        nombre.increment();
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    static int indice(long v) {
+        if (v < SOUS_INTERVALLES) {
+            return (int) v;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(v);
+        int sousIntervalle = (int) (v >>> (exposant - 3)) & (SOUS_INTERVALLES - 1);
+        return (exposant - 2) * SOUS_INTERVALLES + sousIntervalle;
+    }
+
+    static long borneSuperieure(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int exposant = indice / SOUS_INTERVALLES + 2;
+        int sousIntervalle = indice % SOUS_INTERVALLES;
+        return ((SOUS_INTERVALLES + sousIntervalle + 1L) << (exposant - 3)) - 1;
+    }
+
+    public long percentileNanos(double quantile) {
+        long n = nombre.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rang = (long) Math.ceil(quantile * n);
+        long cumul = 0;
+        for (int i = 0; i < TAILLE; i++) {
+            cumul += compteurs.get(i);
+            if (cumul >= rang) {
+                return Math.min(borneSuperieure(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getNombre() {
+        return nombre.sum();
+    }
+
+    @Override
+    public double getMoyenneMicros() {
+        long n = nombre.sum();
+        return n == 0 ? 0.0 : total.sum() / (n * 1000.0);
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return percentileNanos(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1000.0;
+    }
+
+    @Override
+    public void reinitialiser() {
+        for (int i = 0; i < TAILLE; i++) {
+            compteurs.set(i, 0);
+        }
+        nombre.reset();
+        total.reset();
+        max.reset();
+    }
+}
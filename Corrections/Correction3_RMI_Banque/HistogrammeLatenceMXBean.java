@@ -0,0 +1,9 @@
+public interface HistogrammeLatenceMXBean {
+    long getNombre();
+    double getMoyenneMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+    void reinitialiser();
+}
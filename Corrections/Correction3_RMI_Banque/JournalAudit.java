@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Journal d'audit asynchrone : chaque opération est déposée dans une file bornée et
+ * formatée par un thread dédié. Le thread appelant ne fait ni concaténation ni entrée/sortie ;
+ * si la file est pleine, l'événement est compté comme perdu plutôt que de bloquer.
+ */
+public class JournalAudit implements AutoCloseable {
+    private record Evenement(long horodatage, String operation, String compte, String compteCible,
+                             double montant, CodeResultat resultat) {}
+
+    private final BlockingQueue<Evenement> file;
+    private final LongAdder perdus = new LongAdder();
+    private final Thread ecrivain;
+
+    public JournalAudit(int capacite) {
+        this.file = new ArrayBlockingQueue<>(capacite);
+        this.ecrivain = new Thread(this::ecrire, "journal-audit");
+        ecrivain.setDaemon(true);
+        ecrivain.start();
+    }
+
+    public void enregistrer(String operation, String compte, String compteCible, double montant, CodeResultat resultat) {
+        if (!file.offer(new Evenement(System.currentTimeMillis(), operation, compte, compteCible, montant, resultat))) {
+            perdus.increment();
+        }
+    }
+
+    public long getEvenementsPerdus() {
+        return perdus.sum();
+    }
+
+    // Arrête le thread d'écriture ; les événements encore en file ne sont pas écrits
+    @Override
+    public void close() {
+        ecrivain.interrupt();
+    }
+
+    private void ecrire() {
+        List<Evenement> lot = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        try {
+            while (true) {
+                lot.add(file.take());
+                file.drainTo(lot);
+                for (Evenement e : lot) {
+                    sb.append("[AUDIT] ts=").append(e.horodatage())
+                      .append(" op=").append(e.operation())
+                      .append(" compte=").append(e.compte());
+                    if (e.compteCible() != null) {
+                        sb.append(" cible=").append(e.compteCible());
+                    }
+                    sb.append(" montant=").append(e.montant())
+                      .append(" resultat=").append(e.resultat())
+                      .append(System.lineSeparator());
+                }
+                System.out.print(sb);
+                sb.setLength(0);
+                lot.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetriquesMethode extends HistogrammeLatence implements MetriquesMethodeMXBean {
+    private final Map<String, LongAdder> erreurs = new ConcurrentHashMap<>();
+
+    public void enregistrerErreur(String type) {
+        erreurs.computeIfAbsent(type, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public Map<String, Long> getErreurs() {
+        Map<String, Long> copie = new TreeMap<>();
+        erreurs.forEach((type, compteur) -> copie.put(type, compteur.sum()));
+        return copie;
+    }
+
+    @Override
+    public void reinitialiser() {
+        super.reinitialiser();
+        erreurs.clear();
+    }
+}
@@ -0,0 +1,6 @@
+import java.util.Map;
+
+public interface MetriquesMethodeMXBean extends HistogrammeLatenceMXBean {
+    // Nombre d'échecs par type : nom de l'exception levée ou code résultat autre que OK
+    Map<String, Long> getErreurs();
+}
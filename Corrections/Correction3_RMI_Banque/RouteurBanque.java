@@ -0,0 +1,252 @@
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routeur côté client : chaque shard possède une plage du hash des numéros de compte,
+ * et chaque appel est envoyé au shard propriétaire du compte.
+ * Un virement entre deux shards passe par une validation à deux phases.
+ *
+ * La phase 2 (valider le débit, puis le crédit) est rejouable sans risque. Si un shard reste
+ * injoignable après quelques essais, le virement est consigné « en suspens » et sa phase 2 est
+ * reprise au début de chaque virement entre shards suivant (ou par reprendreEnSuspens). Une fois
+ * le débit validé, la décision est prise : le crédit suivra, et le virement est renvoyé comme réussi.
+ * De même, l'annulation d'un crédit préparé non rejouable est reprise si la cible était injoignable.
+ */
+public class RouteurBanque implements BanqueService {
+    private static final int ESSAIS_PHASE2 = 3;
+
+    private final BanqueShard[] shards;
+    // Virements dont la phase 2 (ou l'annulation) n'a pas abouti, par txId
+    private final Map<String, Reprise> enSuspens = new ConcurrentHashMap<>();
+
+    private interface Reprise {
+        void reprendre() throws RemoteException;
+    }
+
+    public RouteurBanque(BanqueShard... shards) {
+        this.shards = shards;
+    }
+
+    // Shards enregistrés sous le nom "BanqueShard" dans des registres sur des ports consécutifs
+    public static RouteurBanque connecter(String host, int premierPort, int nbShards) throws RemoteException, NotBoundException {
+        BanqueShard[] shards = new BanqueShard[nbShards];
+        for (int i = 0; i < nbShards; i++) {
+            Registry registry = LocateRegistry.getRegistry(host, premierPort + i);
+            shards[i] = (BanqueShard) registry.lookup("BanqueShard");
+        }
+        return new RouteurBanque(shards);
+    }
+
+    int indexShard(String numero) {
+        // Mélange du hash puis découpage de l'espace 32 bits en plages contiguës de même taille
+        long h = (numero.hashCode() * 0x9E3779B9) & 0xFFFFFFFFL;
+        return (int) ((h * shards.length) >>> 32);
+    }
+
+    private BanqueShard shard(String numero) {
+        return shards[indexShard(numero)];
+    }
+
+    @Override
+    public void creerCompte(String numero) throws RemoteException {
+        shard(numero).creerCompte(numero);
+    }
+
+    @Override
+    public void depot(String numero, double montant) throws RemoteException, CompteInexistantException {
+        shard(numero).depot(numero, montant);
+    }
+
+    @Override
+    public void retrait(String numero, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException {
+        shard(numero).retrait(numero, montant);
+    }
+
+    @Override
+    public double getSolde(String numero) throws RemoteException, CompteInexistantException {
+        return shard(numero).getSolde(numero);
+    }
+
+    @Override
+    public void virement(String from, String to, double montant) throws RemoteException, CompteInexistantException, SoldeInsuffisantException {
+        tenterVirement(from, to, montant).leverSiEchec(from + " ou " + to, "virement");
+    }
+
+    @Override
+    public CodeResultat tenterDepot(String numero, double montant) throws RemoteException {
+        return shard(numero).tenterDepot(numero, montant);
+    }
+
+    @Override
+    public CodeResultat tenterRetrait(String numero, double montant) throws RemoteException {
+        return shard(numero).tenterRetrait(numero, montant);
+    }
+
+    @Override
+    public CodeResultat tenterVirement(String from, String to, double montant) throws RemoteException {
+        BanqueShard source = shard(from);
+        BanqueShard cible = shard(to);
+        if (source == cible) {
+            return source.tenterVirement(from, to, montant);
+        }
+        return virementDeuxPhases(UUID.randomUUID().toString(), false, source, cible, from, to, montant);
+    }
+
+    @Override
+    public CodeResultat tenterDepot(String idOperation, String numero, double montant) throws RemoteException {
+        return shard(numero).tenterDepot(idOperation, numero, montant);
+    }
+
+    @Override
+    public CodeResultat tenterRetrait(String idOperation, String numero, double montant) throws RemoteException {
+        return shard(numero).tenterRetrait(idOperation, numero, montant);
+    }
+
+    @Override
+    public CodeResultat tenterVirement(String idOperation, String from, String to, double montant) throws RemoteException {
+        BanqueShard source = shard(from);
+        BanqueShard cible = shard(to);
+        if (source == cible) {
+            return source.tenterVirement(idOperation, from, to, montant);
+        }
+        // La préparation étant idempotente par txId, rejouer le virement avec le même identifiant
+        // renvoie les résultats d'origine, et valider/annuler sont sans effet la seconde fois
+        return virementDeuxPhases(idOperation, true, source, cible, from, to, montant);
+    }
+
+    @Override
+    public void abonner(EcouteurSolde ecouteur) throws RemoteException {
+        for (BanqueShard shard : shards) {
+            shard.abonner(ecouteur);
+        }
+    }
+
+    @Override
+    public void desabonner(EcouteurSolde ecouteur) throws RemoteException {
+        for (BanqueShard shard : shards) {
+            shard.desabonner(ecouteur);
+        }
+    }
+
+    // Reprend la phase 2 des virements en suspens ; renvoie le nombre de ceux qui le restent
+    public int reprendreEnSuspens() {
+        for (Map.Entry<String, Reprise> entree : enSuspens.entrySet()) {
+            try {
+                entree.getValue().reprendre();
+                enSuspens.remove(entree.getKey(), entree.getValue());
+            } catch (RemoteException e) {
+                // Toujours injoignable : nouvel essai au prochain virement
+            }
+        }
+        return enSuspens.size();
+    }
+
+    public int getVirementsEnSuspens() {
+        return enSuspens.size();
+    }
+
+    private CodeResultat virementDeuxPhases(String txId, boolean rejouable, BanqueShard source, BanqueShard cible,
+                                            String from, String to, double montant) throws RemoteException {
+        if (!enSuspens.isEmpty()) {
+            reprendreEnSuspens();
+        }
+        // Phase 1 : chaque participant prépare son mouvement (le débit est réservé sur la source)
+        CodeResultat resultat = source.preparerDebit(txId, rejouable, from, montant);
+        if (resultat != CodeResultat.OK) {
+            return resultat;
+        }
+        try {
+            resultat = cible.preparerCredit(txId, rejouable, to, montant);
+        } catch (RemoteException e) {
+            // Issue inconnue côté cible : on annule les deux côtés. annuler oublie aussi le txId,
+            // si bien qu'un rejeu du client repartira d'une nouvelle préparation
+            source.annuler(txId);
+            try {
+                cible.annuler(txId);
+            } catch (RemoteException injoignable) {
+                // Un crédit préparé ne réserve aucun fonds. Rejouable : le rejeu le reprendra. Sinon,
+                // personne ne reviendra sur ce txId : l'annulation est consignée et reprise plus tard
+                if (!rejouable) {
+                    enSuspens.put(txId, () -> cible.annuler(txId));
+                }
+            }
+            throw e;
+        }
+        if (resultat != CodeResultat.OK) {
+            source.annuler(txId);
+            return resultat;
+        }
+
+        // Phase 2 : les deux participants ont accepté, on valide
+        Phase2 phase2 = new Phase2(txId, source, cible);
+        for (int essai = 1; ; essai++) {
+            boolean debite;
+            try {
+                debite = phase2.terminer();
+            } catch (RemoteException e) {
+                if (essai == ESSAIS_PHASE2) {
+                    // Décision consignée : jamais de retour avec une validation à moitié faite et oubliée
+                    enSuspens.put(txId, phase2);
+                    System.err.println("Phase 2 du virement " + txId + " en suspens (débit "
+                        + (phase2.debitValide ? "validé" : "non validé") + ") : " + e);
+                    if (phase2.debitValide) {
+                        return CodeResultat.OK;
+                    }
+                    throw e;
+                }
+                pause(essai);
+                continue;
+            }
+            if (!debite) {
+                throw new RemoteException("Réservation du débit expirée avant la validation, virement " + txId + " annulé");
+            }
+            return CodeResultat.OK;
+        }
+    }
+
+    private static void pause(int essai) {
+        try {
+            Thread.sleep(50L * essai);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Phase 2 d'un virement, rejouable jusqu'à aboutir : chaque appel reprend là où le précédent a échoué
+    private static final class Phase2 implements Reprise {
+        private final String txId;
+        private final BanqueShard source;
+        private final BanqueShard cible;
+        private volatile boolean debitValide;
+
+        Phase2(String txId, BanqueShard source, BanqueShard cible) {
+            this.txId = txId;
+            this.source = source;
+            this.cible = cible;
+        }
+
+        // Renvoie false si la réservation du débit a expiré (le débit a été rendu, le crédit est annulé)
+        synchronized boolean terminer() throws RemoteException {
+            if (!debitValide) {
+                // Une réservation expirée entre-temps a été rendue au compte : le crédit ne doit pas être appliqué
+                if (!source.valider(txId)) {
+                    cible.annuler(txId);
+                    return false;
+                }
+                debitValide = true;
+            }
+            cible.valider(txId);
+            return true;
+        }
+
+        @Override
+        public void reprendre() throws RemoteException {
+            terminer();
+        }
+    }
+}
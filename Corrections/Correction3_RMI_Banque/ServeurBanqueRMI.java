@@ -1,15 +1,74 @@
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.rmi.Remote;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Map;
 
 public class ServeurBanqueRMI {
+    // Usage :
+    //   ServeurBanqueRMI                  -> service unique "BanqueService" sur le port 1099
+    //   ServeurBanqueRMI shard <port>     -> un shard "BanqueShard" par JVM, sur le port donné
+    //   ServeurBanqueRMI local <n> [port] -> n shards dans la même JVM, sur des ports consécutifs
+    // Les métriques des appels sont publiées dans le MBeanServer de la plateforme (domaine "banque", visible dans jconsole).
     public static void main(String[] args) {
         try {
-            BanqueService service = new BanqueServiceImpl();
-            Registry registry = LocateRegistry.createRegistry(1099);
-            registry.rebind("BanqueService", service);
-            System.out.println("[SERVEUR] Service Banque RMI lancé sur le port 1099.");
+            if (args.length >= 2 && args[0].equals("shard")) {
+                int port = Integer.parseInt(args[1]);
+                demarrerShard(port);
+                System.out.println("[SERVEUR] Shard Banque RMI lancé sur le port " + port + ".");
+            } else if (args.length >= 2 && args[0].equals("local")) {
+                int nbShards = Integer.parseInt(args[1]);
+                int premierPort = args.length >= 3 ? Integer.parseInt(args[2]) : 1099;
+                for (int i = 0; i < nbShards; i++) {
+                    demarrerShard(premierPort + i);
+                }
+                System.out.println("[SERVEUR] " + nbShards + " shards Banque RMI lancés à partir du port " + premierPort + ".");
+            } else {
+                BanqueServiceImpl service = new BanqueServiceImpl();
+                Registry registry = LocateRegistry.createRegistry(1099);
+                registry.rebind("BanqueService", UnicastRemoteObject.exportObject(instrumenter(service, "BanqueService"), 0));
+                System.out.println("[SERVEUR] Service Banque RMI lancé sur le port 1099.");
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    // Shard lancé dans cette JVM : arreter() libère tout ce que demarrerShard a exporté ou publié
+    public record Shard(BanqueServiceImpl impl, Remote proxy, Registry registry, String nomService) {
+        public void arreter() throws Exception {
+            UnicastRemoteObject.unexportObject(proxy, true);
+            UnicastRemoteObject.unexportObject(impl, true);
+            UnicastRemoteObject.unexportObject(registry, true);
+            impl.close();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName nom : server.queryNames(new ObjectName("banque:service=" + nomService + ",*"), null)) {
+                server.unregisterMBean(nom);
+            }
+        }
+    }
+
+    public static Shard demarrerShard(int port) throws Exception {
+        BanqueServiceImpl shard = new BanqueServiceImpl();
+        Registry registry = LocateRegistry.createRegistry(port);
+        String nomService = "BanqueShard-" + port;
+        Remote proxy = instrumenter(shard, nomService);
+        registry.rebind("BanqueShard", UnicastRemoteObject.exportObject(proxy, 0));
+        return new Shard(shard, proxy, registry, nomService);
+    }
+
+    // Proxy instrumenté (à exporter) devant le service ; publie ses métriques, ainsi que
+    // les temps d'attente du verrou des comptes, comme MXBeans
+    private static Remote instrumenter(BanqueServiceImpl impl, String nomService) throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        BanqueShard proxy = ServiceInstrumente.instrumenter(impl, BanqueShard.class, server, nomService);
+        for (Map.Entry<String, HistogrammeLatence> attente : impl.getAttentesVerrou().entrySet()) {
+            server.registerMBean(attente.getValue(),
+                new ObjectName("banque:type=AttenteVerrou,service=" + nomService + ",operation=" + attente.getKey()));
+        }
+        return proxy;
+    }
+}
@@ -0,0 +1,60 @@
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Proxy dynamique placé devant le service exporté : mesure la durée de chaque appel
+ * et compte les échecs (exceptions et codes résultat), méthode par méthode.
+ * Chaque méthode est publiée comme MXBean sous {@code banque:type=Methode,service=...,nom=...}.
+ */
+public class ServiceInstrumente implements InvocationHandler {
+    private final Object cible;
+    private final Map<Method, MetriquesMethode> metriques = new HashMap<>();
+
+    private ServiceInstrumente(Object cible, Class<?> type, MBeanServer server, String service) throws Exception {
+        this.cible = cible;
+        for (Method method : type.getMethods()) {
+            // Les surcharges (variantes idempotentes) sont distinguées par leur nombre de paramètres
+            boolean surchargee = Arrays.stream(type.getMethods())
+                .filter(m -> m.getName().equals(method.getName())).count() > 1;
+            String nom = surchargee ? method.getName() + "_" + method.getParameterCount() : method.getName();
+            MetriquesMethode m = new MetriquesMethode();
+            metriques.put(method, m);
+            server.registerMBean(m, new ObjectName("banque:type=Methode,service=" + service + ",nom=" + nom));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T instrumenter(T cible, Class<T> type, MBeanServer server, String service) throws Exception {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+            new ServiceInstrumente(cible, type, server, service));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MetriquesMethode m = metriques.get(method);
+        if (m == null) {
+            // equals, hashCode, toString
+            return method.invoke(cible, args);
+        }
+        long debut = System.nanoTime();
+        try {
+            Object resultat = method.invoke(cible, args);
+            if (resultat instanceof CodeResultat code && code != CodeResultat.OK) {
+                m.enregistrerErreur(code.name());
+            }
+            return resultat;
+        } catch (InvocationTargetException e) {
+            m.enregistrerErreur(e.getCause().getClass().getSimpleName());
+            throw e.getCause();
+        } finally {
+            m.enregistrer(System.nanoTime() - debut);
+        }
+    }
+}
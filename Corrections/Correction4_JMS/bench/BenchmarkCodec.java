@@ -0,0 +1,77 @@
+package bench;
+
+import modele.Commande;
+import modele.CommandeCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+
+/**
+ * Compare la sérialisation Java (contenu d'un ObjectMessage) et CommandeCodec (contenu d'un
+ * BytesMessage) : taille du corps et débit d'encodage/décodage. Aucun broker n'est nécessaire.
+ * Usage : BenchmarkCodec [itérations]
+ */
+public class BenchmarkCodec {
+    private static volatile Object puits;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Commande commande = new Commande(UUID.randomUUID().toString(), "Clavier", 7);
+
+        byte[] serialise = serialiser(commande);
+        byte[] binaire = CommandeCodec.encoder(commande);
+        System.out.printf("taille : sérialisation Java %d octets, codec binaire %d octets%n", serialise.length, binaire.length);
+
+        // Deux passes : la première sert de préchauffage du JIT
+        for (int passe = 0; passe < 2; passe++) {
+            long debut = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                puits = serialiser(commande);
+            }
+            long encodageJava = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                puits = deserialiser(serialise);
+            }
+            long decodageJava = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                puits = CommandeCodec.encoder(commande);
+            }
+            long encodageCodec = System.nanoTime() - debut;
+
+            debut = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                puits = CommandeCodec.decoder(binaire);
+            }
+            long decodageCodec = System.nanoTime() - debut;
+
+            if (passe == 1) {
+                System.out.printf("sérialisation Java : encodage %,.0f/s, décodage %,.0f/s%n",
+                    iterations * 1e9 / encodageJava, iterations * 1e9 / decodageJava);
+                System.out.printf("codec binaire      : encodage %,.0f/s, décodage %,.0f/s%n",
+                    iterations * 1e9 / encodageCodec, iterations * 1e9 / decodageCodec);
+            }
+        }
+    }
+
+    private static byte[] serialiser(Commande commande) throws IOException {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(sortie)) {
+            oos.writeObject(commande);
+        }
+        return sortie.toByteArray();
+    }
+
+    private static Object deserialiser(byte[] donnees) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(donnees))) {
+            return ois.readObject();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import consommateur.GestionnaireAlertes;
+import consommateur.PoolConsommateurs;
+import consommateur.StockConcurrent;
+import consommateur.StockPersistant;
+import jakarta.jms.Connection;
+import modele.Commande;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import producteur.PublicateurCommandes;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Débit de traitement des commandes selon le nombre de consommateurs du pool, avec un coût
+ * de traitement simulé par commande. Vérifie aussi que l'ordre est préservé pour chaque produit.
+ * Chaque nombre de consommateurs est mesuré avec le stock en mémoire, puis avec le StockPersistant
+ * (synchronisation disque avant chaque acquittement, regroupée entre les consommateurs).
+ * Usage : BenchmarkConsommateurs [commandes] [produits] [coût en µs]
+ */
+public class BenchmarkConsommateurs {
+    public static void main(String[] args) throws Exception {
+        int commandes = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int produits = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        long coutMicros = args.length > 2 ? Long.parseLong(args[2]) : 200;
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-consommateurs", false);
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BrokerEmbarque.urlVm("bench-consommateurs"));
+
+        for (boolean persistant : new boolean[]{false, true}) {
+            for (int nbConsommateurs : new int[]{1, 2, 4, 8}) {
+                Path repertoire = persistant ? Files.createTempDirectory("bench-consommateurs") : null;
+                StockConcurrent stock = persistant ? StockPersistant.ouvrir(repertoire) : new StockConcurrent();
+                Map<String, Integer> dernierNumero = new ConcurrentHashMap<>();
+                LongAdder horsOrdre = new LongAdder();
+
+                Connection connexionConsommateurs = factory.createConnection();
+                GestionnaireAlertes alertes = new GestionnaireAlertes(connexionConsommateurs);
+                // Les consommateurs sont enregistrés avant la publication pour que le broker
+                // répartisse les groupes (produits) entre eux
+                PoolConsommateurs pool = new PoolConsommateurs(connexionConsommateurs, nbConsommateurs,
+                    stock, alertes, false, cmd -> {
+                        LockSupport.parkNanos(coutMicros * 1000);
+                        int numero = Integer.parseInt(cmd.getId());
+                        Integer precedent = dernierNumero.put(cmd.getProduit(), numero);
+                        if (precedent != null && precedent > numero) {
+                            horsOrdre.increment();
+                        }
+                    });
+
+                Connection connexionProducteur = factory.createConnection();
+                try (PublicateurCommandes publicateur = new PublicateurCommandes(connexionProducteur,
+                        PublicateurCommandes.Mode.TRANSACTION, 500, 50, 0)) {
+                    for (int i = 0; i < commandes; i++) {
+                        publicateur.publier(new Commande(String.valueOf(i), "P" + (i % produits), 1));
+                    }
+                }
+
+                long debut = System.nanoTime();
+                connexionConsommateurs.start();
+                while (pool.getTraites() < commandes) {
+                    Thread.sleep(5);
+                }
+                double secondes = (System.nanoTime() - debut) / 1e9;
+                System.out.printf("%-10s %d consommateur(s) : %,.0f commandes/s, %d hors ordre%n",
+                    persistant ? "persistant" : "mémoire", nbConsommateurs, commandes / secondes, horsOrdre.sum());
+
+                pool.close();
+                alertes.close();
+                connexionConsommateurs.close();
+                connexionProducteur.close();
+                if (stock instanceof StockPersistant stockPersistant) {
+                    stockPersistant.close();
+                    try (Stream<Path> fichiers = Files.walk(repertoire)) {
+                        fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+                    }
+                }
+            }
+        }
+        broker.stop();
+    }
+}
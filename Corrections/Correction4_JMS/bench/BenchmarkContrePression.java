@@ -0,0 +1,100 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import consommateur.EmetteurCredits;
+import consommateur.GestionnaireAlertes;
+import consommateur.PoolConsommateurs;
+import consommateur.StockConcurrent;
+import jakarta.jms.Connection;
+import mesure.HistogrammeLatence;
+import mesure.TraceLatence;
+import modele.Commande;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import producteur.ControleFlux;
+import producteur.PublicateurCommandes;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Surcharge : le producteur vise un débit supérieur à ce que le consommateur peut traiter.
+ * Sans contrôle de flux, la file COMMANDES grossit tout au long de l'essai et l'attente en file
+ * avec elle ; avec une fenêtre de crédits, la profondeur reste bornée et le débit du producteur
+ * se cale sur celui du consommateur.
+ * Profondeur de file = commandes publiées - commandes traitées, échantillonnée chaque seconde.
+ * Usage : BenchmarkContrePression [durée s] [débit visé/s] [coût de traitement en µs] [fenêtre]
+ */
+public class BenchmarkContrePression {
+    public static void main(String[] args) throws Exception {
+        int duree = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int debitVise = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        long coutMicros = args.length > 2 ? Long.parseLong(args[2]) : 500;
+        int fenetre = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-contre-pression", false);
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BrokerEmbarque.urlVm("bench-contre-pression"));
+
+        mesurer(factory, duree, debitVise, coutMicros, 0);
+        mesurer(factory, duree, debitVise, coutMicros, fenetre);
+        broker.stop();
+    }
+
+    private static void mesurer(ActiveMQConnectionFactory factory, int duree, int debitVise, long coutMicros, int fenetre) throws Exception {
+        HistogrammeLatence attenteFile = TraceLatence.globale().etape(TraceLatence.ATTENTE_FILE);
+        attenteFile.reinitialiser();
+
+        Connection connexionConsommateur = factory.createConnection();
+        GestionnaireAlertes alertes = new GestionnaireAlertes(connexionConsommateur);
+        EmetteurCredits credits = new EmetteurCredits(connexionConsommateur, 10);
+        PoolConsommateurs pool = new PoolConsommateurs(connexionConsommateur, 1, new StockConcurrent(), alertes, false, cmd -> {
+            LockSupport.parkNanos(coutMicros * 1000);
+        });
+        pool.setCredits(credits);
+        connexionConsommateur.start();
+
+        Connection connexionProducteur = factory.createConnection();
+        ControleFlux controleFlux = null;
+        PublicateurCommandes publicateur = new PublicateurCommandes(connexionProducteur,
+            PublicateurCommandes.Mode.ASYNCHRONE, 1000, 50, debitVise);
+        if (fenetre > 0) {
+            controleFlux = new ControleFlux(connexionProducteur, fenetre);
+            publicateur.setControleFlux(controleFlux);
+            connexionProducteur.start();
+        }
+
+        System.out.println(fenetre > 0 ? "Avec fenêtre de " + fenetre + " crédits :" : "Sans contrôle de flux :");
+        long publiees = 0;
+        long debut = System.nanoTime();
+        long prochainEchantillon = debut + 1_000_000_000L;
+        long profondeurMax = 0;
+        Commande commande = new Commande("bench", "Clavier", 0);
+        while (System.nanoTime() - debut < duree * 1_000_000_000L) {
+            publicateur.publier(commande);
+            publiees++;
+            if (System.nanoTime() >= prochainEchantillon) {
+                long profondeur = publiees - pool.getTraites();
+                profondeurMax = Math.max(profondeurMax, profondeur);
+                System.out.printf("  t=%2ds profondeur=%,7d débit producteur=%s%n",
+                    (prochainEchantillon - debut) / 1_000_000_000L, profondeur,
+                    publicateur.getDebit() == 0 ? "illimité" : publicateur.getDebit() + "/s");
+                prochainEchantillon += 1_000_000_000L;
+            }
+        }
+        publicateur.close();
+        System.out.printf("  publiées=%,d traitées=%,d profondeur max=%,d%n  attente en file : %s%n",
+            publiees, pool.getTraites(), profondeurMax, attenteFile);
+
+        // Vidage de la file avant l'essai suivant
+        while (pool.getTraites() < publiees) {
+            Thread.sleep(10);
+        }
+        if (controleFlux != null) {
+            controleFlux.close();
+        }
+        pool.close();
+        credits.close();
+        alertes.close();
+        connexionConsommateur.close();
+        connexionProducteur.close();
+    }
+}
@@ -0,0 +1,60 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import consommateur.ConsommateurParLots;
+import consommateur.GestionnaireAlertes;
+import consommateur.StockConcurrent;
+import jakarta.jms.Connection;
+import modele.Commande;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import producteur.PublicateurCommandes;
+
+/**
+ * Débit et latence de bout en bout du consommateur par micro-lots selon la taille de lot,
+ * pendant qu'un producteur publie à débit fixe sur un broker embarqué.
+ * Usage : BenchmarkLots [commandes] [débit/s] [attente ms] [persistant true|false]
+ */
+public class BenchmarkLots {
+    public static void main(String[] args) throws Exception {
+        int commandes = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int debit = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long attente = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        boolean persistant = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-lots", persistant);
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BrokerEmbarque.urlVm("bench-lots"));
+
+        for (int tailleLot : new int[]{1, 10, 100, 500}) {
+            Connection connexionConsommateur = factory.createConnection();
+            connexionConsommateur.start();
+            GestionnaireAlertes alertes = new GestionnaireAlertes(connexionConsommateur);
+            ConsommateurParLots consommateur = new ConsommateurParLots(connexionConsommateur,
+                new StockConcurrent(), alertes, tailleLot, attente, false);
+            Thread thread = new Thread(consommateur);
+            thread.start();
+
+            long debut = System.nanoTime();
+            Connection connexionProducteur = factory.createConnection();
+            try (PublicateurCommandes publicateur = new PublicateurCommandes(connexionProducteur,
+                    PublicateurCommandes.Mode.ASYNCHRONE, 1, 0, debit)) {
+                for (int i = 0; i < commandes; i++) {
+                    publicateur.publier(new Commande(String.valueOf(i), "P" + (i % 16), 1));
+                }
+            }
+            while (consommateur.getTraites() < commandes) {
+                Thread.sleep(5);
+            }
+            double secondes = (System.nanoTime() - debut) / 1e9;
+            System.out.printf("lot=%-4d : %,.0f commandes/s, %d lots, latence %s%n",
+                tailleLot, commandes / secondes, consommateur.getLots(), consommateur.getLatence());
+
+            consommateur.close();
+            thread.join();
+            alertes.close();
+            connexionConsommateur.close();
+            connexionProducteur.close();
+        }
+        broker.stop();
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import jakarta.jms.*;
+import modele.Commande;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import producteur.PublicateurCommandes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Débit de publication des commandes selon le mode de PublicateurCommandes,
+ * contre un broker ActiveMQ embarqué (transport vm://, aucun service externe).
+ * Usage : BenchmarkPublication [messages] [persistant true|false]
+ */
+public class BenchmarkPublication {
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        boolean persistant = args.length > 1 && Boolean.parseBoolean(args[1]);
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-publication", persistant);
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BrokerEmbarque.urlVm("bench-publication"));
+
+        // Un consommateur vide la queue en parallèle pour ne pas déclencher le contrôle de flux du broker
+        Connection connexionConsommateur = factory.createConnection();
+        connexionConsommateur.start();
+        Session sessionConsommateur = connexionConsommateur.createSession(false, Session.DUPS_OK_ACKNOWLEDGE);
+        LongAdder recus = new LongAdder();
+        sessionConsommateur.createConsumer(sessionConsommateur.createQueue("COMMANDES"))
+            .setMessageListener(message -> recus.increment());
+
+        Connection connection = factory.createConnection();
+        mesurer(connection, PublicateurCommandes.Mode.SYNCHRONE, 1, messages);
+        // En ASYNCHRONE, la taille de lot borne les envois non confirmés
+        for (int fenetre : new int[]{10, 1000}) {
+            mesurer(connection, PublicateurCommandes.Mode.ASYNCHRONE, fenetre, messages);
+        }
+        for (int tailleLot : new int[]{10, 100, 1000}) {
+            mesurer(connection, PublicateurCommandes.Mode.TRANSACTION, tailleLot, messages);
+        }
+
+        connection.close();
+        connexionConsommateur.close();
+        broker.stop();
+    }
+
+    private static void mesurer(Connection connection, PublicateurCommandes.Mode mode, int tailleLot, int messages) throws JMSException {
+        Commande commande = new Commande("bench", "Clavier", 1);
+        // Préchauffage
+        try (PublicateurCommandes publicateur = new PublicateurCommandes(connection, mode, tailleLot, 50, 0)) {
+            for (int i = 0; i < messages / 10; i++) {
+                publicateur.publier(commande);
+            }
+        }
+
+        long debut = System.nanoTime();
+        try (PublicateurCommandes publicateur = new PublicateurCommandes(connection, mode, tailleLot, 50, 0)) {
+            for (int i = 0; i < messages; i++) {
+                publicateur.publier(commande);
+            }
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%-11s lot=%-5d : %,.0f msg/s%n", mode, tailleLot, messages / secondes);
+    }
+}
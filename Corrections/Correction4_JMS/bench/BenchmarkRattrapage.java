@@ -0,0 +1,77 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import jakarta.jms.*;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import superviseur.Superviseur;
+
+/**
+ * Débit de rattrapage d'un abonnement durable filtré : les alertes sont publiées pendant que le
+ * superviseur est déconnecté, puis l'arriéré est vidé à la reconnexion. Compare la configuration
+ * par défaut (AUTO_ACKNOWLEDGE, prefetch standard) à celle de Superviseur.creerFabrique.
+ * Usage : BenchmarkRattrapage [alertes]
+ */
+public class BenchmarkRattrapage {
+    private static final String SELECTEUR = "severite = 'CRITIQUE'";
+
+    public static void main(String[] args) throws Exception {
+        int alertes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-rattrapage", false);
+        String url = BrokerEmbarque.urlVm("bench-rattrapage");
+
+        mesurer("défaut ", new ActiveMQConnectionFactory(url), Session.AUTO_ACKNOWLEDGE, url, alertes);
+        mesurer("optimisé", Superviseur.creerFabrique(url), Session.DUPS_OK_ACKNOWLEDGE, url, alertes);
+
+        broker.stop();
+    }
+
+    private static void mesurer(String libelle, ActiveMQConnectionFactory factory, int acquittement,
+                                String url, int alertes) throws Exception {
+        String nom = "bench-" + acquittement;
+
+        // 1. Création de l'abonnement durable puis déconnexion du superviseur
+        Connection connection = factory.createConnection();
+        connection.setClientID(nom);
+        Session session = connection.createSession(false, acquittement);
+        Topic topic = session.createTopic("ALERTES_STOCK");
+        session.createDurableSubscriber(topic, nom, SELECTEUR, false).close();
+        connection.close();
+
+        // 2. Publication pendant l'absence : une alerte sur deux correspond au sélecteur
+        Connection connexionProducteur = new ActiveMQConnectionFactory(url).createConnection();
+        Session sessionProducteur = connexionProducteur.createSession(true, Session.SESSION_TRANSACTED);
+        MessageProducer producer = sessionProducteur.createProducer(sessionProducteur.createTopic("ALERTES_STOCK"));
+        for (int i = 0; i < alertes; i++) {
+            TextMessage alerte = sessionProducteur.createTextMessage("ALERTE");
+            alerte.setStringProperty("produit", "P" + (i % 10));
+            alerte.setIntProperty("stock", 0);
+            alerte.setIntProperty("seuil", 5);
+            alerte.setStringProperty("severite", i % 2 == 0 ? "CRITIQUE" : "FAIBLE");
+            alerte.setIntProperty("commandesRegroupees", 1);
+            producer.send(alerte);
+            if (i % 1000 == 999) {
+                sessionProducteur.commit();
+            }
+        }
+        sessionProducteur.commit();
+        connexionProducteur.close();
+
+        // 3. Reconnexion et rattrapage
+        connection = factory.createConnection();
+        connection.setClientID(nom);
+        connection.start();
+        session = connection.createSession(false, acquittement);
+        MessageConsumer consumer = session.createDurableSubscriber(session.createTopic("ALERTES_STOCK"), nom, SELECTEUR, false);
+        long debut = System.nanoTime();
+        long lues = Superviseur.rattraper(consumer, 500, message -> { });
+        // Le délai d'inactivité final ne fait pas partie du rattrapage
+        double secondes = (System.nanoTime() - debut) / 1e9 - 0.5;
+        System.out.printf("%s : %d alertes rattrapées en %.0f ms (%,.0f/s)%n", libelle, lues, secondes * 1000, lues / secondes);
+
+        consumer.close();
+        session.unsubscribe(nom);
+        connection.close();
+    }
+}
@@ -0,0 +1,84 @@
+package bench;
+
+import consommateur.StockPersistant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Temps de restauration du StockPersistant selon la taille de l'état (nombre de produits)
+ * et la longueur du journal à rejouer depuis le dernier instantané.
+ * Mesure aussi le coût d'écriture : une synchronisation (fsync) par commande ou par lot de 100.
+ * Usage : BenchmarkRecuperation [répertoire de travail]
+ */
+public class BenchmarkRecuperation {
+    public static void main(String[] args) throws Exception {
+        Path racine = Path.of(args.length > 0 ? args[0] : "bench-recuperation");
+
+        for (int produits : new int[]{1_000, 10_000, 100_000}) {
+            for (int journal : new int[]{0, 10_000, 100_000}) {
+                Path repertoire = racine.resolve(produits + "-" + journal);
+                supprimer(repertoire);
+
+                // Un instantané contenant tous les produits, puis "journal" entrées non encore consolidées
+                try (StockPersistant stock = StockPersistant.ouvrir(repertoire, produits, 100_000)) {
+                    for (int i = 0; i < produits; i++) {
+                        stock.appliquer(List.of("init-" + i), Map.of("P" + i, 1));
+                    }
+                }
+                try (StockPersistant stock = StockPersistant.ouvrir(repertoire, Integer.MAX_VALUE, 100_000)) {
+                    for (int i = 0; i < journal; i++) {
+                        stock.appliquer(List.of("cmd-" + i), Map.of("P" + (i % produits), 1));
+                        if (i % 100 == 99) {
+                            stock.synchroniser();
+                        }
+                    }
+                }
+
+                long taille = taille(repertoire);
+                StockPersistant restaure = StockPersistant.ouvrir(repertoire, Integer.MAX_VALUE, 100_000);
+                System.out.printf("%,7d produits, %,7d entrées de journal (%,6d Ko) : restauration en %7.1f ms%n",
+                    produits, restaure.getEntreesRejouees(), taille / 1024, restaure.getDureeRecuperationMillis());
+                restaure.close();
+            }
+        }
+
+        for (int lot : new int[]{1, 100}) {
+            Path repertoire = racine.resolve("ecriture-" + lot);
+            supprimer(repertoire);
+            int commandes = 10_000;
+            try (StockPersistant stock = StockPersistant.ouvrir(repertoire)) {
+                long debut = System.nanoTime();
+                for (int i = 0; i < commandes; i++) {
+                    stock.retirer("cmd-" + i, "P" + (i % 100), 1);
+                    if (i % lot == lot - 1) {
+                        stock.synchroniser();
+                    }
+                }
+                double secondes = (System.nanoTime() - debut) / 1e9;
+                System.out.printf("Écriture, synchronisation tous les %3d : %,.0f commandes/s%n", lot, commandes / secondes);
+            }
+        }
+        supprimer(racine);
+    }
+
+    private static long taille(Path repertoire) throws IOException {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers.mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+
+    private static void supprimer(Path repertoire) throws IOException {
+        if (!Files.exists(repertoire)) {
+            return;
+        }
+        try (Stream<Path> fichiers = Files.walk(repertoire)) {
+            fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import broker.BrokerEmbarque;
+import jakarta.jms.*;
+import mesure.HistogrammeLatence;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Débit et latence producteur → consommateur dans une même JVM, selon le transport
+ * (vm:// ou tcp:// vers le même broker embarqué) et le mode de livraison.
+ * La latence est mesurée avec System.nanoTime(), transporté dans une propriété du message.
+ * Usage : BenchmarkTransport [messages] [broker persistant true|false]
+ */
+public class BenchmarkTransport {
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        boolean brokerPersistant = args.length > 1 && Boolean.parseBoolean(args[1]);
+
+        BrokerService broker = BrokerEmbarque.demarrer("bench-transport", brokerPersistant, "tcp://localhost:61626");
+        String[][] transports = {
+            {"vm ", BrokerEmbarque.urlVm("bench-transport")},
+            {"tcp", "tcp://localhost:61626"}
+        };
+        for (String[] transport : transports) {
+            for (int mode : new int[]{DeliveryMode.PERSISTENT, DeliveryMode.NON_PERSISTENT}) {
+                mesurer(transport[0], new ActiveMQConnectionFactory(transport[1]), mode, messages);
+            }
+        }
+        broker.stop();
+    }
+
+    private static void mesurer(String transport, ConnectionFactory factory, int mode, int messages) throws Exception {
+        HistogrammeLatence latence = new HistogrammeLatence();
+        LongAdder recus = new LongAdder();
+
+        Connection connexionConsommateur = factory.createConnection();
+        connexionConsommateur.start();
+        Session sessionConsommateur = connexionConsommateur.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        sessionConsommateur.createConsumer(sessionConsommateur.createQueue("BENCH_TRANSPORT")).setMessageListener(message -> {
+            try {
+                latence.enregistrer(System.nanoTime() - message.getLongProperty("envoiNanos"));
+                recus.increment();
+            } catch (JMSException e) {
+                e.printStackTrace();
+            }
+        });
+
+        Connection connexionProducteur = factory.createConnection();
+        Session session = connexionProducteur.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer producer = session.createProducer(session.createQueue("BENCH_TRANSPORT"));
+        producer.setDeliveryMode(mode);
+        byte[] corps = new byte[32];
+
+        long debut = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            BytesMessage message = session.createBytesMessage();
+            message.writeBytes(corps);
+            message.setLongProperty("envoiNanos", System.nanoTime());
+            producer.send(message);
+        }
+        while (recus.sum() < messages) {
+            Thread.sleep(1);
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%s %-14s : %,.0f msg/s, latence %s%n", transport,
+            mode == DeliveryMode.PERSISTENT ? "PERSISTENT" : "NON_PERSISTENT", messages / secondes, latence);
+
+        connexionProducteur.close();
+        connexionConsommateur.close();
+    }
+}
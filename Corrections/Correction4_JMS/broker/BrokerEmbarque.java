@@ -0,0 +1,27 @@
+package broker;
+
+import org.apache.activemq.broker.BrokerService;
+
+// Broker ActiveMQ démarré dans la JVM courante (nécessite activemq-all ou activemq-broker)
+public class BrokerEmbarque {
+
+    // Démarre un broker nommé, joignable en "vm://<nom>" depuis la même JVM
+    // et, en plus, sur chacun des connecteurs donnés (ex : "tcp://localhost:61616")
+    public static BrokerService demarrer(String nom, boolean persistant, String... connecteurs) throws Exception {
+        BrokerService broker = new BrokerService();
+        broker.setBrokerName(nom);
+        broker.setPersistent(persistant);
+        broker.setUseJmx(false);
+        for (String connecteur : connecteurs) {
+            broker.addConnector(connecteur);
+        }
+        broker.start();
+        broker.waitUntilStarted();
+        return broker;
+    }
+
+    // URL de connexion au broker embarqué, sans en recréer un automatiquement s'il n'existe pas
+    public static String urlVm(String nom) {
+        return "vm://" + nom + "?create=false";
+    }
+}
@@ -0,0 +1,16 @@
+package broker;
+
+// URL du broker utilisée par les programmes : TCP par défaut, modifiable avec -Djms.url=...
+// (par exemple -Djms.url=vm://entrepot?create=false dans un processus qui embarque le broker)
+public class ConfigurationJms {
+    public static final String URL_PAR_DEFAUT = "tcp://localhost:61616";
+
+    public static String url() {
+        return System.getProperty("jms.url", URL_PAR_DEFAUT);
+    }
+
+    // Mode de livraison des commandes : persistant par défaut, -Djms.persistant=false pour NON_PERSISTENT
+    public static boolean livraisonPersistante() {
+        return Boolean.parseBoolean(System.getProperty("jms.persistant", "true"));
+    }
+}
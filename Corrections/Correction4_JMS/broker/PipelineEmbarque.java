@@ -0,0 +1,57 @@
+package broker;
+
+import consommateur.ConsommateurCommande;
+import org.apache.activemq.broker.BrokerService;
+import producteur.ProducteurCommande;
+import superviseur.Superviseur;
+
+/**
+ * Déploiement en un seul processus : démarre un broker embarqué, puis le consommateur,
+ * le superviseur et le producteur, tous connectés par le transport vm:// (sans pile TCP).
+ *
+ * Usage : PipelineEmbarque [commandes] [débit/s] [persistant true|false] [port TCP]
+ *   persistant : false (défaut) = broker sans stockage et livraison NON_PERSISTENT
+ *   port TCP   : ouvre aussi le broker à des programmes externes (ex : 61616)
+ */
+public class PipelineEmbarque {
+    public static void main(String[] args) throws Exception {
+        String commandes = args.length > 0 ? args[0] : "1000";
+        String debit = args.length > 1 ? args[1] : "100";
+        boolean persistant = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        BrokerService broker = args.length > 3
+            ? BrokerEmbarque.demarrer("entrepot", persistant, "tcp://0.0.0.0:" + args[3])
+            : BrokerEmbarque.demarrer("entrepot", persistant);
+
+        // Les programmes lisent leur URL dans ConfigurationJms
+        System.setProperty("jms.url", BrokerEmbarque.urlVm("entrepot"));
+        System.setProperty("jms.persistant", String.valueOf(persistant));
+
+        Thread consommateur = lancer("consommateur", () -> ConsommateurCommande.main(new String[0]));
+        Thread superviseur = lancer("superviseur", () -> Superviseur.main(new String[]{"superviseur-embarque"}));
+        // Laisse le temps au consommateur et au superviseur de s'abonner
+        Thread.sleep(1000);
+
+        ProducteurCommande.main(new String[]{"ASYNCHRONE", commandes, debit});
+
+        consommateur.join();
+        superviseur.join();
+        broker.stop();
+    }
+
+    private interface Programme {
+        void executer() throws Exception;
+    }
+
+    private static Thread lancer(String nom, Programme programme) {
+        Thread thread = new Thread(() -> {
+            try {
+                programme.executer();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, nom);
+        thread.start();
+        return thread;
+    }
+}
@@ -1,79 +1,97 @@
 package consommateur;
 
 // Import des API JMS (Jakarta) et des classes nécessaires
+import broker.ConfigurationJms;
 import jakarta.jms.*;
-import modele.Commande; // Classe métier représentant une commande (produit + quantité)
+import mesure.TraceLatence;
 import org.apache.activemq.ActiveMQConnectionFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
 
 public class ConsommateurCommande {
+
+    // Usage : ConsommateurCommande [nombre de consommateurs]        (1 par défaut)
+    //         ConsommateurCommande lots [taille lot] [attente ms]  (micro-lots, voir ConsommateurParLots)
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("lots")) {
+            consommerParLots(args.length > 1 ? Integer.parseInt(args[1]) : 100,
+                             args.length > 2 ? Long.parseLong(args[2]) : 20);
+            return;
+        }
+        int nbConsommateurs = args.length > 0 ? Integer.parseInt(args[0]) : 1;
 
-        // 1. Connexion au broker ActiveMQ via la factory (TCP par défaut)
-        ConnectionFactory factory = new ActiveMQConnectionFactory("tcp://localhost:61616");
+        // 1. Connexion au broker ActiveMQ via la factory (TCP par défaut, voir ConfigurationJms)
+        ConnectionFactory factory = new ActiveMQConnectionFactory(ConfigurationJms.url());
 
-        // 2. Création et démarrage de la connexion
+        // 2. Création de la connexion (démarrée une fois tous les consommateurs en place)
         Connection connection = factory.createConnection();
-        connection.start();
-
-        // 3. Création d'une session JMS sans transaction, avec acquittement automatique
-        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-
-        // 4. Création (ou accès) à la Queue de commandes
-        Queue queue = session.createQueue("COMMANDES");
 
-        // 5. Création (ou accès) au Topic des alertes de stock
-        Topic topic = session.createTopic("ALERTES_STOCK");
+        // 3. Stock (produit → quantité disponible), partagé par tous les consommateurs et restauré
+        //    depuis le répertoire "etat-consommateur" : il survit aux redémarrages (voir StockPersistant)
+        StockPersistant stock = ouvrirStock();
 
-        // 6. Création d'un consommateur sur la Queue "COMMANDES"
-        MessageConsumer consumer = session.createConsumer(queue);
+        // 4. Gestionnaire des alertes de stock faible, publiées (regroupées) sur le Topic "ALERTES_STOCK"
+        GestionnaireAlertes alertes = new GestionnaireAlertes(connection);
 
-        // 7. Création d’un producteur de messages pour le Topic d’alertes
-        MessageProducer alertPublisher = session.createProducer(topic);
+        // 5. Création des consommateurs : une session par consommateur sur la Queue "COMMANDES" (voir PoolConsommateurs) ;
+        //    chaque commande traitée rend un crédit au producteur (contre-pression, voir EmetteurCredits)
+        EmetteurCredits credits = new EmetteurCredits(connection, 10);
+        PoolConsommateurs pool = new PoolConsommateurs(connection, nbConsommateurs, stock, alertes, true, cmd -> { });
+        pool.setCredits(credits);
 
-        // 8. Stock simulé (produit → quantité disponible)
-        Map<String, Integer> stock = new HashMap<>();
-
-        // 9. Définition du listener asynchrone pour traiter les messages de commande
-        consumer.setMessageListener(message -> {
-            try {
-                // 9.1 Conversion du message en ObjectMessage (type attendu)
-                ObjectMessage objMsg = (ObjectMessage) message;
-
-                // 9.2 Récupération de l’objet Commande
-                Commande cmd = (Commande) objMsg.getObject();
+        // 6. Démarrage de la connexion : les messages commencent à être distribués
+        connection.start();
 
-                // 9.3 Mise à jour du stock pour ce produit (valeur par défaut : 20)
-                int reste = stock.getOrDefault(cmd.getProduit(), 20) - cmd.getQuantite();
-                stock.put(cmd.getProduit(), reste);
+        // 7. Message d'information pour indiquer que le consommateur est actif
+        System.out.println(nbConsommateurs + " consommateur(s) démarré(s), en attente de commandes...");
+        TraceLatence.globale().demarrerRapport(10);
 
-                // 9.4 Affichage du traitement
-                System.out.println("Commande reçue : " + cmd + ", stock restant : " + reste);
+        // 8. Attente passive pendant 30 secondes avant de fermer (simule l'exécution continue)
+        Thread.sleep(30000);
 
-                // 9.5 Si stock faible (< 5), on envoie une alerte via le Topic
-                if (reste < 5) {
-                    TextMessage alert = session.createTextMessage(
-                        "ALERTE: Stock faible pour " + cmd.getProduit() + " (" + reste + " restants)"
-                    );
-                    alertPublisher.send(alert);
-                    System.out.println("Alerte envoyée pour produit " + cmd.getProduit());
-                }
+        // 9. Fermeture propre des sessions et de la connexion
+        pool.close();
+        credits.close();
+        alertes.close();
+        connection.close();
+        stock.close();
+        System.out.println("Commandes traitées : " + pool.getTraites() + ", stock final : " + stock.instantane()
+            + ", alertes émises : " + alertes.getEmises() + " (" + alertes.getRegroupees() + " regroupées)");
+        System.out.println(TraceLatence.globale().rapport());
+    }
 
-            } catch (Exception e) {
-                // Gestion des erreurs éventuelles lors de la réception ou du traitement
-                e.printStackTrace();
-            }
-        });
+    private static void consommerParLots(int tailleLot, long attenteMillis) throws Exception {
+        ConnectionFactory factory = new ActiveMQConnectionFactory(ConfigurationJms.url());
+        Connection connection = factory.createConnection();
+        connection.start();
 
-        // 10. Message d'information pour indiquer que le consommateur est actif
-        System.out.println("Consommateur démarré, en attente de commandes...");
+        StockPersistant stock = ouvrirStock();
+        GestionnaireAlertes alertes = new GestionnaireAlertes(connection);
+        EmetteurCredits credits = new EmetteurCredits(connection, 10);
+        ConsommateurParLots consommateur = new ConsommateurParLots(connection, stock, alertes, tailleLot, attenteMillis, true);
+        consommateur.setCredits(credits);
+        Thread thread = new Thread(consommateur, "consommateur-lots");
+        thread.start();
+        System.out.println("Consommateur par lots démarré (lots de " + tailleLot + ", attente " + attenteMillis + " ms)...");
+        TraceLatence.globale().demarrerRapport(10);
 
-        // 11. Attente passive pendant 30 secondes avant de fermer (simule l'exécution continue)
         Thread.sleep(30000);
 
-        // 12. Fermeture propre de la connexion (et donc des ressources JMS)
+        consommateur.close();
+        thread.join();
+        credits.close();
+        alertes.close();
         connection.close();
+        stock.close();
+        System.out.println("Commandes traitées : " + consommateur.getTraites() + " en " + consommateur.getLots()
+            + " lots, latence " + consommateur.getLatence() + ", stock final : " + stock.instantane());
+        System.out.println(TraceLatence.globale().rapport());
+    }
+
+    private static StockPersistant ouvrirStock() throws Exception {
+        StockPersistant stock = StockPersistant.ouvrir(Path.of("etat-consommateur"));
+        System.out.printf("Stock restauré en %.1f ms (séquence %d, %d entrées de journal rejouées) : %s%n",
+            stock.getDureeRecuperationMillis(), stock.getSequence(), stock.getEntreesRejouees(), stock.instantane());
+        return stock;
     }
 }
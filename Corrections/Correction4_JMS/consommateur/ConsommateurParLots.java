@@ -0,0 +1,181 @@
+package consommateur;
+
+import jakarta.jms.*;
+import mesure.HistogrammeLatence;
+import mesure.TraceLatence;
+import modele.Commande;
+import modele.CommandeCodec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consommation des commandes par micro-lots dans une session transactionnelle :
+ * on lit jusqu'à tailleLot messages ou jusqu'à expiration du délai d'attente, on applique
+ * au stock la somme des quantités par produit, puis un seul commit acquitte tout le lot.
+ * Les alertes de stock faible sont confiées au GestionnaireAlertes. Avec un StockPersistant,
+ * le lot est écrit dans le journal avant le commit et les messages déjà appliqués sont écartés.
+ */
+public class ConsommateurParLots implements Runnable, AutoCloseable {
+    private final Session session;
+    private final MessageConsumer consumer;
+    private final GestionnaireAlertes alertes;
+    private final StockConcurrent stock;
+    private final int tailleLot;
+    private final long attenteMaxMillis;
+    private final boolean verbeux;
+
+    private final LongAdder traites = new LongAdder();
+    private final LongAdder lots = new LongAdder();
+    // Latence de bout en bout : horodatage d'envoi (JMSTimestamp) → commit du lot
+    private final HistogrammeLatence latence = new HistogrammeLatence();
+    private final TraceLatence trace = TraceLatence.globale();
+    private volatile boolean actif = true;
+    private volatile EmetteurCredits credits;
+
+    public ConsommateurParLots(Connection connection, StockConcurrent stock, GestionnaireAlertes alertes, int tailleLot,
+                               long attenteMaxMillis, boolean verbeux) throws JMSException {
+        this.session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        this.consumer = session.createConsumer(session.createQueue("COMMANDES"));
+        this.alertes = alertes;
+        this.stock = stock;
+        this.tailleLot = tailleLot;
+        this.attenteMaxMillis = attenteMaxMillis;
+        this.verbeux = verbeux;
+    }
+
+    // Contre-pression : les crédits du lot sont rendus après son commit (voir EmetteurCredits)
+    public void setCredits(EmetteurCredits credits) {
+        this.credits = credits;
+    }
+
+    @Override
+    public void run() {
+        Map<String, Integer> deltas = new HashMap<>();
+        List<String> ids = new ArrayList<>(tailleLot);
+        long[] horodatages = new long[tailleLot];
+        Message[] recus = new Message[tailleLot];
+        long pause = 0;
+        while (actif) {
+            try {
+                // Le premier message ouvre le lot
+                Message premier = consumer.receive(100);
+                if (premier == null) {
+                    continue;
+                }
+                try {
+                    traiterLot(premier, deltas, ids, horodatages, recus);
+                } catch (RuntimeException e) {
+                    // Commande illisible : le lot entier sera redélivré (puis envoyé en DLQ par le broker)
+                    e.printStackTrace();
+                    session.rollback();
+                }
+                pause = 0;
+            } catch (JMSException e) {
+                if (!actif) {
+                    break;
+                }
+                // Incident du broker : le lot non validé sera redélivré (les messages déjà appliqués au stock
+                // sont écartés), et le consommateur reprend après une pause croissante, plafonnée à 5 s
+                System.err.println("Lot abandonné : " + e);
+                annulerLot();
+                pause = Math.min(5000, Math.max(100, pause * 2));
+                try {
+                    Thread.sleep(pause);
+                } catch (InterruptedException interruption) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                deltas.clear();
+                ids.clear();
+            }
+        }
+    }
+
+    private void annulerLot() {
+        try {
+            session.rollback();
+        } catch (JMSException e) {
+            // Session inutilisable : le broker redélivrera les messages non acquittés à la reconnexion
+        }
+    }
+
+    private void traiterLot(Message premier, Map<String, Integer> deltas, List<String> ids, long[] horodatages,
+                            Message[] recus) throws JMSException {
+        // 1. Les messages suivants sont attendus au plus attenteMaxMillis
+        int n = 0;
+        long debut = System.nanoTime();
+        long plusAncienne = 0;
+        long limite = System.currentTimeMillis() + attenteMaxMillis;
+        Message message = premier;
+        while (message != null) {
+            recus[n] = message;
+            trace.enregistrerDepuis(TraceLatence.ATTENTE_FILE, message, TraceLatence.ENVOI);
+            if (plusAncienne == 0 && message.propertyExists(TraceLatence.ENVOI)) {
+                plusAncienne = message.getLongProperty(TraceLatence.ENVOI);
+            }
+            String id = message.getJMSMessageID();
+            if (!stock.dejaApplique(id)) {
+                Commande cmd = CommandeCodec.lire(message);
+                deltas.merge(cmd.getProduit(), cmd.getQuantite(), Integer::sum);
+                ids.add(id);
+            }
+            horodatages[n++] = message.getJMSTimestamp();
+            if (n == tailleLot) {
+                break;
+            }
+            long reste = limite - System.currentTimeMillis();
+            message = reste > 0 ? consumer.receive(reste) : consumer.receiveNoWait();
+        }
+
+        // 2. Une seule mise à jour du stock par produit pour tout le lot, rendue durable avant le commit
+        if (!ids.isEmpty()) {
+            for (Map.Entry<String, Integer> reste : stock.appliquer(ids, deltas).entrySet()) {
+                alertes.evaluer(reste.getKey(), reste.getValue(), plusAncienne);
+            }
+            stock.synchroniser();
+        }
+
+        // 3. Un seul acquittement (commit) pour le lot
+        session.commit();
+        trace.enregistrer(TraceLatence.TRAITEMENT, System.nanoTime() - debut);
+        if (credits != null) {
+            // Une commande après l'autre : un lot peut mêler les commandes de plusieurs producteurs
+            for (int i = 0; i < n; i++) {
+                credits.traite(recus[i]);
+            }
+        }
+
+        long maintenant = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            latence.enregistrer((maintenant - horodatages[i]) * 1_000_000L);
+        }
+        traites.add(n);
+        lots.increment();
+        if (verbeux) {
+            System.out.println("Lot de " + n + " commandes traité : " + deltas);
+        }
+    }
+
+    public long getTraites() {
+        return traites.sum();
+    }
+
+    public long getLots() {
+        return lots.sum();
+    }
+
+    public HistogrammeLatence getLatence() {
+        return latence;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        actif = false;
+        session.close();
+    }
+}
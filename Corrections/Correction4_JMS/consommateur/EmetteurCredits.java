@@ -0,0 +1,110 @@
+package consommateur;
+
+import jakarta.jms.*;
+import producteur.ControleFlux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Côté consommateur du contrôle de flux : rend au producteur un message de crédits
+ * toutes les "lot" commandes traitées (voir producteur.ControleFlux).
+ *
+ * Chaque commande désigne dans JMSReplyTo la file de crédits (temporaire) de son producteur :
+ * les crédits sont comptés et rendus par producteur, et une commande publiée sans fenêtre
+ * (pas de JMSReplyTo) n'en rapporte aucun. Le lot est ramené à la moitié de la fenêtre du
+ * producteur, que chaque commande indique : avec une fenêtre plus petite que le lot, le producteur
+ * attendrait sinon des crédits qui ne viendraient jamais. Les crédits en attente sont de toute
+ * façon rendus toutes les delaiMaxMillis ms, même sans nouvelle commande.
+ * Les crédits sont non persistants : un crédit perdu est rattrapé par ControleFlux.
+ */
+public class EmetteurCredits implements AutoCloseable {
+    private final Session session;
+    // Producteur anonyme : chaque message de crédits part vers la file de son producteur
+    private final MessageProducer producer;
+    private final int lot;
+    // Crédits non rendus, par file de crédits (une par producteur, comparées par equals)
+    private final Map<Destination, Compteur> parProducteur = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService minuteur;
+
+    private static final class Compteur {
+        private final AtomicInteger nonRendus = new AtomicInteger();
+        private volatile int lot;
+    }
+
+    public EmetteurCredits(Connection connection, int lot) throws JMSException {
+        this(connection, lot, 20);
+    }
+
+    public EmetteurCredits(Connection connection, int lot, long delaiMaxMillis) throws JMSException {
+        this.lot = lot;
+        this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        this.producer = session.createProducer(null);
+        producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        this.minuteur = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "emetteur-credits");
+            thread.setDaemon(true);
+            return thread;
+        });
+        minuteur.scheduleAtFixedRate(this::rendreTout, delaiMaxMillis, delaiMaxMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // À appeler après chaque commande traitée, depuis n'importe quel thread consommateur
+    public void traite(Message commande) {
+        Destination fileCredits;
+        int fenetre;
+        try {
+            fileCredits = commande.getJMSReplyTo();
+            if (fileCredits == null || !commande.propertyExists(ControleFlux.PROPRIETE_FENETRE)) {
+                // Producteur sans contrôle de flux : personne n'attend ce crédit
+                return;
+            }
+            fenetre = commande.getIntProperty(ControleFlux.PROPRIETE_FENETRE);
+        } catch (JMSException e) {
+            // En-têtes illisibles : le crédit sera rattrapé par la resynchronisation du producteur
+            return;
+        }
+        Compteur compteur = parProducteur.computeIfAbsent(fileCredits, d -> new Compteur());
+        compteur.lot = Math.max(1, Math.min(lot, fenetre / 2));
+        if (compteur.nonRendus.incrementAndGet() >= compteur.lot) {
+            rendre(fileCredits, compteur);
+        }
+    }
+
+    private void rendreTout() {
+        parProducteur.forEach(this::rendre);
+    }
+
+    private void rendre(Destination fileCredits, Compteur compteur) {
+        int n = compteur.nonRendus.getAndSet(0);
+        if (n == 0) {
+            return;
+        }
+        try {
+            // Une session JMS ne doit être utilisée que par un thread à la fois
+            synchronized (session) {
+                Message message = session.createMessage();
+                message.setIntProperty(ControleFlux.PROPRIETE_CREDITS, n);
+                producer.send(fileCredits, message);
+            }
+        } catch (InvalidDestinationException e) {
+            // File temporaire supprimée : son producteur est fermé, ses crédits n'ont plus d'objet
+            parProducteur.remove(fileCredits, compteur);
+        } catch (JMSException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() throws JMSException {
+        minuteur.shutdownNow();
+        rendreTout();
+        synchronized (session) {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package consommateur;
+
+import jakarta.jms.*;
+import mesure.TraceLatence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Regroupement des alertes de stock faible publiées sur ALERTES_STOCK.
+ *
+ * - Hystérésis : la première baisse sous le seuil d'alerte déclenche une alerte, puis le produit
+ *   est désarmé ; il ne se réarme qu'une fois le stock remonté au seuil de réarmement.
+ * - Regroupement : tant que le produit est désarmé, les baisses suivantes sont cumulées et donnent
+ *   au plus une alerte de mise à jour par fenêtre (sauf passage en CRITIQUE, signalé tout de suite).
+ * - Les alertes portent des propriétés (produit, stock, seuil, severite, commandesRegroupees)
+ *   pour que les abonnés filtrent par sélecteur JMS plutôt qu'en analysant le texte.
+ *
+ * Chaque alerte porte aussi l'horodatage de la première commande regroupée (traceCommande) et
+ * celui de sa propre publication (traceAlerte), pour le traçage de bout en bout (voir TraceLatence).
+ *
+ * Les consommateurs appellent evaluer() depuis n'importe quel thread ; seul le thread interne
+ * publie, avec sa propre session.
+ */
+public class GestionnaireAlertes implements AutoCloseable {
+    public static final String FAIBLE = "FAIBLE";
+    public static final String CRITIQUE = "CRITIQUE";
+
+    private static final class EtatProduit {
+        boolean arme = true;
+        boolean enAttente;          // une alerte doit être émise au prochain passage
+        long derniereEmission;
+        int stock;
+        int dernierStockEmis = Integer.MIN_VALUE;
+        String derniereSeverite;
+        int commandesRegroupees;
+        long debutAttente;          // passage en attente (horodatage TraceLatence)
+        long commandeOrigine;       // publication de la première commande regroupée, 0 si inconnue
+    }
+
+    private final Map<String, EtatProduit> etats = new ConcurrentHashMap<>();
+    private final int seuilAlerte;
+    private final int seuilRearmement;
+    private final long fenetreMillis;
+    private final Session session;
+    private final MessageProducer publisher;
+    private final ScheduledExecutorService emetteur = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "emetteur-alertes");
+        t.setDaemon(true);
+        return t;
+    });
+    private final LongAdder emises = new LongAdder();
+    private final LongAdder regroupees = new LongAdder();
+    private final TraceLatence trace = TraceLatence.globale();
+
+    public GestionnaireAlertes(Connection connection, int seuilAlerte, int seuilRearmement,
+                               long fenetreMillis, long periodeMillis) throws JMSException {
+        this.seuilAlerte = seuilAlerte;
+        this.seuilRearmement = seuilRearmement;
+        this.fenetreMillis = fenetreMillis;
+        this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        this.publisher = session.createProducer(session.createTopic("ALERTES_STOCK"));
+        emetteur.scheduleAtFixedRate(() -> emettre(false), periodeMillis, periodeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Valeurs par défaut : alerte sous 5, réarmement à partir de 10, une mise à jour toutes les 5 s au plus
+    public GestionnaireAlertes(Connection connection) throws JMSException {
+        this(connection, 5, 10, 5000, 100);
+    }
+
+    // À appeler après chaque mise à jour du stock d'un produit
+    public void evaluer(String produit, int stock) {
+        evaluer(produit, stock, 0);
+    }
+
+    // traceCommande : horodatage de publication de la commande (TraceLatence.ENVOI), 0 si inconnu
+    public void evaluer(String produit, int stock, long traceCommande) {
+        EtatProduit etat = etats.computeIfAbsent(produit, p -> new EtatProduit());
+        synchronized (etat) {
+            etat.stock = stock;
+            if (stock >= seuilRearmement) {
+                etat.arme = true;
+                etat.enAttente = false;
+                etat.commandesRegroupees = 0;
+                etat.dernierStockEmis = Integer.MIN_VALUE;
+                etat.derniereSeverite = null;
+            } else if (stock < seuilAlerte) {
+                if (etat.arme) {
+                    etat.arme = false;
+                    etat.derniereEmission = 0;
+                } else {
+                    regroupees.increment();
+                }
+                if (!etat.enAttente) {
+                    etat.debutAttente = TraceLatence.horodatage();
+                    etat.commandeOrigine = traceCommande;
+                }
+                etat.enAttente = true;
+                etat.commandesRegroupees++;
+            }
+        }
+    }
+
+    // forcer : émet toutes les alertes en attente sans attendre la fin de leur fenêtre (fermeture)
+    private void emettre(boolean forcer) {
+        long maintenant = System.currentTimeMillis();
+        for (Map.Entry<String, EtatProduit> entree : etats.entrySet()) {
+            EtatProduit etat = entree.getValue();
+            int stock;
+            int commandes;
+            String severite;
+            long debutAttente;
+            long commandeOrigine;
+            synchronized (etat) {
+                if (!etat.enAttente) {
+                    continue;
+                }
+                severite = etat.stock <= 0 ? CRITIQUE : FAIBLE;
+                boolean aggravation = CRITIQUE.equals(severite) && !CRITIQUE.equals(etat.derniereSeverite);
+                if (!forcer && !aggravation && maintenant - etat.derniereEmission < fenetreMillis) {
+                    continue;
+                }
+                etat.enAttente = false;
+                if (etat.stock == etat.dernierStockEmis && severite.equals(etat.derniereSeverite)) {
+                    // Rien de nouveau depuis la dernière alerte : doublon supprimé
+                    etat.commandesRegroupees = 0;
+                    continue;
+                }
+                stock = etat.stock;
+                commandes = etat.commandesRegroupees;
+                debutAttente = etat.debutAttente;
+                commandeOrigine = etat.commandeOrigine;
+                etat.commandesRegroupees = 0;
+                etat.derniereEmission = maintenant;
+                etat.dernierStockEmis = stock;
+                etat.derniereSeverite = severite;
+            }
+            publier(entree.getKey(), stock, severite, commandes, debutAttente, commandeOrigine);
+        }
+    }
+
+    private void publier(String produit, int stock, String severite, int commandes, long debutAttente, long commandeOrigine) {
+        try {
+            TextMessage alert = session.createTextMessage(
+                "ALERTE: Stock faible pour " + produit + " (" + stock + " restants)"
+            );
+            alert.setStringProperty("produit", produit);
+            alert.setIntProperty("stock", stock);
+            alert.setIntProperty("seuil", seuilAlerte);
+            alert.setStringProperty("severite", severite);
+            alert.setIntProperty("commandesRegroupees", commandes);
+            long maintenant = TraceLatence.horodatage();
+            alert.setLongProperty(TraceLatence.ALERTE, maintenant);
+            if (commandeOrigine != 0) {
+                alert.setLongProperty(TraceLatence.COMMANDE, commandeOrigine);
+            }
+            trace.enregistrer(TraceLatence.ATTENTE_ALERTE, (maintenant - debutAttente) * 1000);
+            publisher.send(alert);
+            emises.increment();
+        } catch (JMSException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getEmises() {
+        return emises.sum();
+    }
+
+    // Baisses de stock absorbées par une alerte déjà émise ou en attente
+    public long getRegroupees() {
+        return regroupees.sum();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        emetteur.shutdown();
+        try {
+            emetteur.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        emettre(true);
+        session.close();
+    }
+}
@@ -0,0 +1,112 @@
+package consommateur;
+
+import jakarta.jms.*;
+import mesure.TraceLatence;
+import modele.Commande;
+import modele.CommandeCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * N consommateurs de la queue COMMANDES, chacun dans sa propre session (donc son propre thread).
+ * Les commandes portent JMSXGroupID = produit : le broker attribue chaque produit à un seul
+ * consommateur, ce qui préserve l'ordre des commandes d'un même produit tout en traitant
+ * des produits différents en parallèle.
+ *
+ * Acquittement explicite (CLIENT_ACKNOWLEDGE) : une commande n'est acquittée qu'une fois son retrait
+ * rendu durable (synchroniser, regroupé entre les consommateurs par StockPersistant) ; une commande
+ * en échec n'est pas acquittée mais redélivrée (session.recover, puis DLQ après plusieurs échecs).
+ * Le crédit de contre-pression est rendu dans tous les cas : un crédit de trop est sans effet
+ * (ControleFlux ne dépasse jamais sa fenêtre), un crédit manquant la réduirait.
+ */
+public class PoolConsommateurs implements AutoCloseable {
+    private final List<Session> sessions = new ArrayList<>();
+    private final StockConcurrent stock;
+    private final GestionnaireAlertes alertes;
+    private final boolean verbeux;
+    private final Consumer<Commande> apresTraitement;
+    private volatile EmetteurCredits credits;
+    private final LongAdder traites = new LongAdder();
+    private final TraceLatence trace = TraceLatence.globale();
+
+    public PoolConsommateurs(Connection connection, int nbConsommateurs, StockConcurrent stock, GestionnaireAlertes alertes,
+                             boolean verbeux, Consumer<Commande> apresTraitement) throws JMSException {
+        this.stock = stock;
+        this.alertes = alertes;
+        this.verbeux = verbeux;
+        this.apresTraitement = apresTraitement;
+        for (int i = 0; i < nbConsommateurs; i++) {
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createQueue("COMMANDES"));
+            consumer.setMessageListener(message -> traiter(session, message));
+            sessions.add(session);
+        }
+    }
+
+    // Contre-pression : chaque commande traitée rend un crédit au producteur (voir EmetteurCredits)
+    public void setCredits(EmetteurCredits credits) {
+        this.credits = credits;
+    }
+
+    private void traiter(Session session, Message message) {
+        long debut = System.nanoTime();
+        try {
+            trace.enregistrerDepuis(TraceLatence.ATTENTE_FILE, message, TraceLatence.ENVOI);
+            String idMessage = message.getJMSMessageID();
+            // Une redélivrance d'une commande appliquée juste avant une panne est seulement acquittée
+            if (!stock.dejaApplique(idMessage)) {
+                appliquer(idMessage, message);
+            }
+            // Le retrait doit être durable avant l'acquittement
+            stock.synchroniser();
+            message.acknowledge();
+            trace.enregistrer(TraceLatence.TRAITEMENT, System.nanoTime() - debut);
+        } catch (Exception e) {
+            e.printStackTrace();
+            redelivrer(session);
+        } finally {
+            if (credits != null) {
+                credits.traite(message);
+            }
+        }
+    }
+
+    private void appliquer(String idMessage, Message message) throws JMSException {
+        Commande cmd = CommandeCodec.lire(message);
+        int reste = stock.retirer(idMessage, cmd.getProduit(), cmd.getQuantite());
+        if (verbeux) {
+            System.out.println("Commande reçue : " + cmd + ", stock restant : " + reste);
+        }
+
+        // Les alertes de stock faible sont regroupées et publiées par le gestionnaire
+        // L'horodatage de la commande suit l'alerte qu'elle déclenche éventuellement
+        alertes.evaluer(cmd.getProduit(), reste,
+            message.propertyExists(TraceLatence.ENVOI) ? message.getLongProperty(TraceLatence.ENVOI) : 0);
+
+        apresTraitement.accept(cmd);
+        traites.increment();
+    }
+
+    // Commande non acquittée : le broker la redélivre (jusqu'à sa limite de redélivrances, puis DLQ)
+    private static void redelivrer(Session session) {
+        try {
+            session.recover();
+        } catch (JMSException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long getTraites() {
+        return traites.sum();
+    }
+
+    @Override
+    public void close() throws JMSException {
+        for (Session session : sessions) {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package consommateur;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stock partagé entre les consommateurs : chaque mise à jour est atomique pour son produit
+public class StockConcurrent {
+    public static final int STOCK_INITIAL = 20;
+
+    private final Map<String, Integer> stock = new ConcurrentHashMap<>();
+
+    // Retire la quantité commandée et renvoie le stock restant (valeur de départ : STOCK_INITIAL)
+    public int retirer(String produit, int quantite) {
+        return stock.compute(produit, (p, reste) -> (reste == null ? STOCK_INITIAL : reste) - quantite);
+    }
+
+    // Variante rattachée aux messages JMS appliqués (voir StockPersistant) ; ici, sans état durable,
+    // aucun message n'est mémorisé ni dédoublonné
+    public int retirer(String idMessage, String produit, int quantite) {
+        return retirer(produit, quantite);
+    }
+
+    // Applique d'un bloc les retraits issus d'un lot de messages et renvoie le stock restant par produit
+    public Map<String, Integer> appliquer(Collection<String> idsMessages, Map<String, Integer> retraits) {
+        Map<String, Integer> restes = new HashMap<>();
+        retraits.forEach((produit, quantite) -> restes.put(produit, retirer(produit, quantite)));
+        return restes;
+    }
+
+    // Vrai si le message a déjà été appliqué (redélivrance après une panne survenue avant l'acquittement)
+    public boolean dejaApplique(String idMessage) {
+        return false;
+    }
+
+    // Rend durables les retraits appliqués jusqu'ici ; à appeler avant d'acquitter les messages
+    public void synchroniser() {
+    }
+
+    public int get(String produit) {
+        return stock.getOrDefault(produit, STOCK_INITIAL);
+    }
+
+    // Restauration d'un état sauvegardé
+    void fixer(String produit, int quantite) {
+        stock.put(produit, quantite);
+    }
+
+    public Map<String, Integer> instantane() {
+        return new TreeMap<>(stock);
+    }
+}
@@ -0,0 +1,278 @@
+package consommateur;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stock du consommateur conservé sur disque, dans un répertoire :
+ * - journal.bin    : journal en ajout seul, une entrée par lot de messages appliqué
+ *                    (numéro de séquence, identifiants JMS, retraits par produit, CRC) ;
+ * - instantane.bin : état complet (stock et derniers identifiants appliqués) à une séquence donnée,
+ *                    écrit tous les "periodeInstantane" lots, après quoi le journal repart de zéro.
+ *
+ * Lien avec les acquittements : le consommateur appelle synchroniser() (écriture forcée sur disque)
+ * avant d'acquitter. Une panne avant la synchronisation laisse les messages non acquittés : le broker
+ * les redélivre et ils sont appliqués une fois. Une panne après la synchronisation mais avant
+ * l'acquittement provoque aussi une redélivrance, que dejaApplique() écarte grâce à l'identifiant
+ * JMS mémorisé. Aucune commande n'est donc perdue ni appliquée deux fois.
+ *
+ * Validation groupée : l'écriture forcée se fait hors du verrou du stock, sous un verrou qui lui est
+ * propre. Pendant qu'un consommateur attend le disque, les autres continuent d'ajouter au journal ;
+ * la synchronisation suivante couvre toutes leurs entrées d'un coup, et un consommateur dont l'entrée
+ * est déjà couverte par celle d'un autre n'attend pas de nouvelle écriture forcée.
+ */
+public class StockPersistant extends StockConcurrent implements AutoCloseable {
+    private static final int VERSION = 1;
+
+    private final Path repertoire;
+    private final int periodeInstantane;
+    private final int memoireIds;
+    // Derniers identifiants appliqués, du plus ancien au plus récent (bornés à memoireIds)
+    private final LinkedHashSet<String> appliques = new LinkedHashSet<>();
+    private final FileChannel journal;
+    private final long dureeRecuperationNanos;
+    private final long entreesRejouees;
+    // Sérialise les écritures forcées et les instantanés (pris avant le verrou du stock, jamais après)
+    private final Object verrouForce = new Object();
+
+    private long sequence;
+    private int depuisInstantane;
+    // Dernière séquence écrite sur disque (sous verrouForce)
+    private long synchronisee;
+
+    private StockPersistant(Path repertoire, int periodeInstantane, int memoireIds) throws IOException {
+        this.repertoire = repertoire;
+        this.periodeInstantane = periodeInstantane;
+        this.memoireIds = memoireIds;
+        Files.createDirectories(repertoire);
+
+        long debut = System.nanoTime();
+        chargerInstantane();
+        this.journal = FileChannel.open(repertoire.resolve("journal.bin"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.entreesRejouees = rejouerJournal();
+        this.dureeRecuperationNanos = System.nanoTime() - debut;
+        this.synchronisee = sequence;
+    }
+
+    // Restaure l'état du répertoire (instantané puis journal) ; crée un état vide s'il n'existe pas
+    public static StockPersistant ouvrir(Path repertoire, int periodeInstantane, int memoireIds) throws IOException {
+        return new StockPersistant(repertoire, periodeInstantane, memoireIds);
+    }
+
+    // Valeurs par défaut : un instantané tous les 10 000 lots, 100 000 identifiants mémorisés
+    public static StockPersistant ouvrir(Path repertoire) throws IOException {
+        return ouvrir(repertoire, 10_000, 100_000);
+    }
+
+    @Override
+    public synchronized Map<String, Integer> appliquer(Collection<String> idsMessages, Map<String, Integer> retraits) {
+        try {
+            journal.write(ByteBuffer.wrap(encoder(sequence + 1, idsMessages, retraits)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du journal impossible", e);
+        }
+        sequence++;
+        depuisInstantane++;
+        memoriser(idsMessages);
+        return super.appliquer(idsMessages, retraits);
+    }
+
+    @Override
+    public int retirer(String idMessage, String produit, int quantite) {
+        return appliquer(List.of(idMessage), Map.of(produit, quantite)).get(produit);
+    }
+
+    @Override
+    public synchronized boolean dejaApplique(String idMessage) {
+        return appliques.contains(idMessage);
+    }
+
+    @Override
+    public void synchroniser() {
+        long attendue;
+        synchronized (this) {
+            attendue = sequence;
+        }
+        synchronized (verrouForce) {
+            if (synchronisee >= attendue) {
+                // Déjà couverte par l'écriture forcée d'un autre consommateur
+                return;
+            }
+            try {
+                long couverte;
+                synchronized (this) {
+                    couverte = sequence;
+                }
+                // Hors du verrou du stock : les autres consommateurs continuent d'écrire au journal
+                journal.force(false);
+                synchronisee = couverte;
+                synchronized (this) {
+                    if (depuisInstantane >= periodeInstantane) {
+                        ecrireInstantane();
+                        synchronisee = sequence;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Synchronisation du journal impossible", e);
+            }
+        }
+    }
+
+    private void memoriser(Collection<String> idsMessages) {
+        appliques.addAll(idsMessages);
+        Iterator<String> plusAnciens = appliques.iterator();
+        while (appliques.size() > memoireIds) {
+            plusAnciens.next();
+            plusAnciens.remove();
+        }
+    }
+
+    // Entrée du journal : longueur, contenu, CRC32 du contenu
+    private static byte[] encoder(long sequence, Collection<String> idsMessages, Map<String, Integer> retraits) throws IOException {
+        ByteArrayOutputStream contenu = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(contenu);
+        out.writeLong(sequence);
+        out.writeInt(idsMessages.size());
+        for (String id : idsMessages) {
+            out.writeUTF(id);
+        }
+        out.writeInt(retraits.size());
+        for (Map.Entry<String, Integer> retrait : retraits.entrySet()) {
+            out.writeUTF(retrait.getKey());
+            out.writeInt(retrait.getValue());
+        }
+        byte[] octets = contenu.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(octets);
+        return ByteBuffer.allocate(octets.length + 8).putInt(octets.length).put(octets).putInt((int) crc.getValue()).array();
+    }
+
+    // Rejoue les entrées postérieures à l'instantané ; une fin de journal incomplète (panne en cours
+    // d'écriture) est tronquée
+    private long rejouerJournal() throws IOException {
+        long rejouees = 0;
+        long position = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(journal.position(0))));
+        try {
+            while (true) {
+                int longueur = in.readInt();
+                if (longueur < 0 || longueur > journal.size() - position) {
+                    break;
+                }
+                byte[] octets = new byte[longueur];
+                in.readFully(octets);
+                CRC32 crc = new CRC32();
+                crc.update(octets);
+                if (in.readInt() != (int) crc.getValue()) {
+                    break;
+                }
+                DataInputStream entree = new DataInputStream(new ByteArrayInputStream(octets));
+                long seq = entree.readLong();
+                List<String> ids = new ArrayList<>();
+                for (int i = entree.readInt(); i > 0; i--) {
+                    ids.add(entree.readUTF());
+                }
+                Map<String, Integer> retraits = new HashMap<>();
+                for (int i = entree.readInt(); i > 0; i--) {
+                    retraits.put(entree.readUTF(), entree.readInt());
+                }
+                position += longueur + 8;
+                // Entrée déjà comprise dans l'instantané (panne entre l'instantané et la remise à zéro du journal)
+                if (seq <= sequence) {
+                    continue;
+                }
+                super.appliquer(ids, retraits);
+                memoriser(ids);
+                sequence = seq;
+                depuisInstantane++;
+                rejouees++;
+            }
+        } catch (EOFException e) {
+            // Entrée tronquée
+        }
+        journal.truncate(position);
+        journal.position(position);
+        return rejouees;
+    }
+
+    private void chargerInstantane() throws IOException {
+        Path fichier = repertoire.resolve("instantane.bin");
+        if (!Files.exists(fichier)) {
+            return;
+        }
+        CheckedInputStream controle = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(fichier)), new CRC32());
+        try (DataInputStream in = new DataInputStream(controle)) {
+            if (in.readInt() != VERSION) {
+                throw new IOException("Version d'instantané inconnue : " + fichier);
+            }
+            sequence = in.readLong();
+            for (int i = in.readInt(); i > 0; i--) {
+                fixer(in.readUTF(), in.readInt());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                appliques.add(in.readUTF());
+            }
+            long attendu = controle.getChecksum().getValue();
+            if (in.readLong() != attendu) {
+                throw new IOException("Instantané corrompu : " + fichier);
+            }
+        }
+    }
+
+    // Écrit l'instantané à côté puis le renomme d'un coup : une panne laisse l'ancien ou le nouveau, jamais un mélange
+    private void ecrireInstantane() throws IOException {
+        Path temporaire = repertoire.resolve("instantane.tmp");
+        Map<String, Integer> etat = instantane();
+        try (FileOutputStream fichier = new FileOutputStream(temporaire.toFile())) {
+            CheckedOutputStream controle = new CheckedOutputStream(new BufferedOutputStream(fichier), new CRC32());
+            DataOutputStream out = new DataOutputStream(controle);
+            out.writeInt(VERSION);
+            out.writeLong(sequence);
+            out.writeInt(etat.size());
+            for (Map.Entry<String, Integer> produit : etat.entrySet()) {
+                out.writeUTF(produit.getKey());
+                out.writeInt(produit.getValue());
+            }
+            out.writeInt(appliques.size());
+            for (String id : appliques) {
+                out.writeUTF(id);
+            }
+            out.writeLong(controle.getChecksum().getValue());
+            out.flush();
+            fichier.getFD().sync();
+        }
+        Files.move(temporaire, repertoire.resolve("instantane.bin"),
+            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        journal.truncate(0);
+        journal.position(0);
+        depuisInstantane = 0;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public long getEntreesRejouees() {
+        return entreesRejouees;
+    }
+
+    public double getDureeRecuperationMillis() {
+        return dureeRecuperationNanos / 1e6;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchroniser();
+        synchronized (this) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package mesure;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traçage de la latence du pipeline, étape par étape.
+ *
+ * Chaque saut pose un horodatage (microsecondes depuis l'époque, horloge murale) dans une propriété
+ * du message ; le saut suivant en déduit la durée de l'étape et l'enregistre dans un histogramme.
+ * Entre deux machines, la mesure inclut le décalage de leurs horloges (à synchroniser par NTP).
+ *
+ *   Producteur    ──traceEnvoi──▶  COMMANDES  ──▶  Consommateur
+ *   Consommateur  ──traceCommande, traceAlerte──▶  ALERTES_STOCK  ──▶  Superviseur
+ *
+ * Une instance par processus (globale()), partagée par les composants qui y tournent.
+ */
+public final class TraceLatence {
+    // Propriétés des messages
+    public static final String ENVOI = "traceEnvoi";         // commande : publication par le producteur
+    public static final String COMMANDE = "traceCommande";   // alerte : publication de la commande à l'origine
+    public static final String ALERTE = "traceAlerte";       // alerte : publication par le consommateur
+
+    // Étapes, numérotées dans l'ordre du pipeline
+    public static final String PUBLICATION = "1 publication (envoi → accusé broker)";
+    public static final String ATTENTE_FILE = "2 attente en file COMMANDES";
+    public static final String TRAITEMENT = "3 traitement de la commande";
+    public static final String ATTENTE_ALERTE = "4 regroupement de l'alerte";
+    public static final String TRANSIT_ALERTE = "5 transit ALERTES_STOCK";
+    public static final String BOUT_EN_BOUT = "6 bout en bout (commande → superviseur)";
+
+    private static final TraceLatence GLOBALE = new TraceLatence();
+
+    private final Map<String, HistogrammeLatence> etapes = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService rapporteur;
+
+    public static TraceLatence globale() {
+        return GLOBALE;
+    }
+
+    public static long horodatage() {
+        Instant maintenant = Instant.now();
+        return maintenant.getEpochSecond() * 1_000_000L + maintenant.getNano() / 1000;
+    }
+
+    public HistogrammeLatence etape(String nom) {
+        return etapes.computeIfAbsent(nom, n -> new HistogrammeLatence());
+    }
+
+    public void enregistrer(String etape, long nanos) {
+        etape(etape).enregistrer(nanos);
+    }
+
+    // Durée écoulée depuis l'horodatage porté par la propriété ; ignoré si le message n'est pas tracé
+    public void enregistrerDepuis(String etape, Message message, String propriete) throws JMSException {
+        if (message.propertyExists(propriete)) {
+            enregistrer(etape, (horodatage() - message.getLongProperty(propriete)) * 1000);
+        }
+    }
+
+    public String rapport() {
+        StringBuilder sb = new StringBuilder("Latence par étape :");
+        etapes.forEach((nom, histogramme) -> sb.append(String.format("%n  %-42s %s", nom, histogramme)));
+        return sb.toString();
+    }
+
+    // Affiche le rapport toutes les periodeSecondes (un seul rapporteur par processus)
+    public synchronized void demarrerRapport(long periodeSecondes) {
+        if (rapporteur != null) {
+            return;
+        }
+        rapporteur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rapport-latence");
+            t.setDaemon(true);
+            return t;
+        });
+        rapporteur.scheduleAtFixedRate(() -> {
+            if (!etapes.isEmpty()) {
+                System.out.println(rapport());
+            }
+        }, periodeSecondes, periodeSecondes, TimeUnit.SECONDS);
+    }
+}
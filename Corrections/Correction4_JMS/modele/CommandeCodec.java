@@ -0,0 +1,113 @@
+package modele;
+
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Session;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Encodage binaire compact d'une Commande, transporté dans un BytesMessage
+ * à la place d'un ObjectMessage (sérialisation Java).
+ *
+ * Format (version 1) :
+ *   octet    version
+ *   octet    drapeaux (bit 0 : identifiant au format UUID)
+ *   id       16 octets si UUID, sinon longueur (16 bits non signés) + UTF-8
+ *   produit  longueur (16 bits non signés) + UTF-8
+ *   int      quantite
+ * Une chaîne de plus de 65 535 octets en UTF-8 est refusée à l'encodage.
+ */
+public final class CommandeCodec {
+    public static final byte VERSION = 1;
+    private static final byte ID_UUID = 0x01;
+    private static final int LONGUEUR_MAX = 0xFFFF;
+
+    private CommandeCodec() {
+    }
+
+    public static byte[] encoder(Commande commande) {
+        UUID uuid = enUuid(commande.getId());
+        byte[] id = uuid == null ? utf8("id", commande.getId()) : null;
+        byte[] produit = utf8("produit", commande.getProduit());
+
+        int taille = 2 + (uuid != null ? 16 : 2 + id.length) + 2 + produit.length + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(taille);
+        buffer.put(VERSION);
+        buffer.put(uuid != null ? ID_UUID : 0);
+        if (uuid != null) {
+            buffer.putLong(uuid.getMostSignificantBits());
+            buffer.putLong(uuid.getLeastSignificantBits());
+        } else {
+            buffer.putShort((short) id.length).put(id);
+        }
+        buffer.putShort((short) produit.length).put(produit);
+        buffer.putInt(commande.getQuantite());
+        return buffer.array();
+    }
+
+    public static Commande decoder(byte[] donnees) {
+        ByteBuffer buffer = ByteBuffer.wrap(donnees);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Version d'encodage de commande inconnue : " + version);
+        }
+        byte drapeaux = buffer.get();
+        String id = (drapeaux & ID_UUID) != 0
+            ? new UUID(buffer.getLong(), buffer.getLong()).toString()
+            : lireChaine(buffer);
+        String produit = lireChaine(buffer);
+        int quantite = buffer.getInt();
+        return new Commande(id, produit, quantite);
+    }
+
+    public static BytesMessage creerMessage(Session session, Commande commande) throws JMSException {
+        BytesMessage message = session.createBytesMessage();
+        message.writeBytes(encoder(commande));
+        return message;
+    }
+
+    // Accepte aussi les anciens ObjectMessage, le temps que tous les producteurs migrent
+    public static Commande lire(Message message) throws JMSException {
+        if (message instanceof BytesMessage bytes) {
+            byte[] donnees = new byte[(int) bytes.getBodyLength()];
+            bytes.readBytes(donnees);
+            return decoder(donnees);
+        }
+        return (Commande) ((ObjectMessage) message).getObject();
+    }
+
+    // Refuse une chaîne dont la longueur ne tiendrait pas sur 16 bits : elle serait tronquée et illisible
+    private static byte[] utf8(String champ, String valeur) {
+        byte[] octets = valeur.getBytes(StandardCharsets.UTF_8);
+        if (octets.length > LONGUEUR_MAX) {
+            throw new IllegalArgumentException("Champ " + champ + " trop long pour l'encodage : "
+                + octets.length + " octets (max " + LONGUEUR_MAX + ")");
+        }
+        return octets;
+    }
+
+    private static String lireChaine(ByteBuffer buffer) {
+        int longueur = buffer.getShort() & 0xFFFF;
+        String valeur = new String(buffer.array(), buffer.position(), longueur, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + longueur);
+        return valeur;
+    }
+
+    private static UUID enUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // fromString tolère des écritures non canoniques : on ne garde que celles qui se relisent à l'identique
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package producteur;
+
+import jakarta.jms.*;
+import mesure.HistogrammeLatence;
+
+import java.util.Enumeration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contre-pression pilotée par le consommateur : le producteur dispose d'une fenêtre de crédits,
+ * un crédit par commande publiée ; les consommateurs rendent des crédits au fil des commandes
+ * traitées (voir consommateur.EmetteurCredits). Chaque producteur reçoit ses crédits sur sa propre
+ * file temporaire, indiquée en JMSReplyTo de ses commandes : ni les crédits d'un autre producteur,
+ * ni ceux d'une exécution précédente (la file disparaît avec sa connexion) ne faussent sa fenêtre
+ * ou son estimation du débit.
+ * Quand la fenêtre est épuisée, publier() bloque : au plus "fenetre" commandes sont en file
+ * ou en cours de traitement, quel que soit le retard du consommateur.
+ *
+ * Les crédits voyagent en messages non persistants de durée de vie limitée : un crédit expiré ou
+ * perdu (broker redémarré) réduirait la fenêtre pour toujours. Après DELAI_RESYNCHRO sans crédit
+ * alors que la fenêtre est épuisée, le producteur compte donc les commandes encore présentes dans
+ * COMMANDES (QueueBrowser, au plus "fenetre") et rend les crédits manquants. Les commandes en cours
+ * chez un consommateur ne sont pas vues : la fenêtre peut alors être dépassée de ces quelques commandes.
+ * Les commandes d'autres producteurs sont comptées avec les siennes : la récupération reste prudente.
+ *
+ * Le débit conseillé suit le débit mesuré du consommateur, corrigé selon le remplissage de la
+ * fenêtre, pour que le producteur ralentisse avant de buter sur la limite.
+ */
+public class ControleFlux implements AutoCloseable {
+    public static final String PROPRIETE_CREDITS = "credits";
+    // Portée par chaque commande : les consommateurs y lisent la taille de la fenêtre (voir EmetteurCredits)
+    public static final String PROPRIETE_FENETRE = "fenetreCredits";
+    private static final long DELAI_RESYNCHRO_MILLIS = 5000;
+
+    private final int fenetre;
+    private final Semaphore credits;
+    private final Connection connection;
+    private final Session session;
+    private final TemporaryQueue fileCredits;
+    private final LongAdder rendus = new LongAdder();
+    private final LongAdder recuperes = new LongAdder();
+    // Temps passé bloqué faute de crédit
+    private final HistogrammeLatence attente = new HistogrammeLatence();
+
+    private long dernierAjustement = System.nanoTime();
+    private long rendusAuDernierAjustement;
+    private double debitConsommateur;
+
+    public ControleFlux(Connection connection, int fenetre) throws JMSException {
+        this.fenetre = fenetre;
+        this.credits = new Semaphore(fenetre);
+        this.connection = connection;
+        this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        this.fileCredits = session.createTemporaryQueue();
+        session.createConsumer(fileCredits).setMessageListener(message -> {
+            try {
+                int n = message.getIntProperty(PROPRIETE_CREDITS);
+                rendus.add(n);
+                // Un crédit rendu deux fois (commande redélivrée) ne doit pas élargir la fenêtre
+                credits.release(Math.min(n, fenetre - credits.availablePermits()));
+            } catch (JMSException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Prend un crédit avant chaque publication, en attendant si la fenêtre est pleine
+    public void acquerir() throws JMSException {
+        if (credits.tryAcquire()) {
+            return;
+        }
+        long debut = System.nanoTime();
+        try {
+            while (!credits.tryAcquire(DELAI_RESYNCHRO_MILLIS, TimeUnit.MILLISECONDS)) {
+                resynchroniser();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("Attente de crédit interrompue");
+        }
+        attente.enregistrer(System.nanoTime() - debut);
+    }
+
+    // Rend les crédits des commandes qui ne sont plus en file ; session dédiée, celle des crédits
+    // étant réservée à son MessageListener
+    private void resynchroniser() throws JMSException {
+        int enFile = 0;
+        Session navigation = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        try {
+            QueueBrowser browser = navigation.createBrowser(navigation.createQueue("COMMANDES"));
+            Enumeration<?> messages = browser.getEnumeration();
+            while (enFile < fenetre && messages.hasMoreElements()) {
+                messages.nextElement();
+                enFile++;
+            }
+        } finally {
+            navigation.close();
+        }
+        int manquants = fenetre - enFile - credits.availablePermits();
+        if (manquants > 0) {
+            credits.release(manquants);
+            recuperes.add(manquants);
+        }
+    }
+
+    // À placer en JMSReplyTo de chaque commande publiée
+    public Destination getFileCredits() {
+        return fileCredits;
+    }
+
+    public int getFenetre() {
+        return fenetre;
+    }
+
+    // Crédits rendus par resynchronisation (crédits perdus en route)
+    public long getRecuperes() {
+        return recuperes.sum();
+    }
+
+    // Commandes publiées et pas encore traitées (en file ou chez un consommateur)
+    public int getEnVol() {
+        return fenetre - credits.availablePermits();
+    }
+
+    // Débit conseillé (messages/s) au vu de la dernière période, 0 tant qu'aucune mesure n'est disponible
+    public synchronized int debitConseille() {
+        long maintenant = System.nanoTime();
+        double secondes = (maintenant - dernierAjustement) / 1e9;
+        long total = rendus.sum();
+        double mesure = (total - rendusAuDernierAjustement) / secondes;
+        dernierAjustement = maintenant;
+        rendusAuDernierAjustement = total;
+        // Moyenne glissante pour lisser les à-coups du consommateur
+        debitConsommateur = debitConsommateur == 0 ? mesure : 0.7 * debitConsommateur + 0.3 * mesure;
+        if (debitConsommateur == 0) {
+            return 0;
+        }
+        double remplissage = (double) getEnVol() / fenetre;
+        double facteur = remplissage > 0.75 ? 0.8 : remplissage < 0.25 ? 1.25 : 1.0;
+        return Math.max(1, (int) (debitConsommateur * facteur));
+    }
+
+    public HistogrammeLatence getAttente() {
+        return attente;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        session.close();
+    }
+}
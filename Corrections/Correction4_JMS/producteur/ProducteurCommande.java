@@ -1,7 +1,9 @@
 package producteur;
 
 // Import des API JMS (Jakarta) et des classes nécessaires
+import broker.ConfigurationJms;
 import jakarta.jms.*;
+import mesure.TraceLatence;
 import modele.Commande; // Classe métier représentant une commande
 import org.apache.activemq.ActiveMQConnectionFactory;
 
@@ -9,55 +11,79 @@ import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class ProducteurCommande {
+
+    // Usage : ProducteurCommande [mode] [nombre] [débit/s] [taille lot] [délai lot ms] [fenêtre de crédits]
+    //   mode    : SYNCHRONE (défaut), TRANSACTION ou ASYNCHRONE (voir PublicateurCommandes)
+    //   fenêtre : nombre max de commandes non traitées par les consommateurs (0 = pas de contre-pression,
+    //             voir ControleFlux)
+    //   Sans argument : 10 commandes envoyées une à une, une par seconde
     public static void main(String[] args) throws Exception {
+        PublicateurCommandes.Mode mode = args.length > 0 ? PublicateurCommandes.Mode.valueOf(args[0]) : PublicateurCommandes.Mode.SYNCHRONE;
+        int nombre = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int debit = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int tailleLot = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        long delaiLot = args.length > 4 ? Long.parseLong(args[4]) : 50;
+        int fenetre = args.length > 5 ? Integer.parseInt(args[5]) : 0;
 
-        // 1. Connexion au broker ActiveMQ via la factory (URL par défaut en TCP)
-        ConnectionFactory factory = new ActiveMQConnectionFactory("tcp://localhost:61616");
+        // 1. Connexion au broker ActiveMQ via la factory (URL par défaut en TCP, voir ConfigurationJms)
+        ConnectionFactory factory = new ActiveMQConnectionFactory(ConfigurationJms.url());
 
-        // 2. Création de la connexion (non démarrée ici car ce n'est pas nécessaire pour l'envoi)
+        // 2. Création de la connexion (démarrée seulement pour recevoir les crédits du contrôle de flux)
         Connection connection = factory.createConnection();
 
-        // 3. Création d'une session non transactionnelle avec acquittement automatique
-        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-
-        // 4. Création (ou accès) à la Queue "COMMANDES"
-        Queue queue = session.createQueue("COMMANDES");
-
-        // 5. Création d'un producteur de message pour cette queue
-        MessageProducer producer = session.createProducer(queue);
+        // 3. Création du publicateur : session, producteur sur la Queue "COMMANDES" et limitation de débit
+        PublicateurCommandes publicateur = new PublicateurCommandes(connection, mode, tailleLot, delaiLot, debit);
+        publicateur.setPersistant(ConfigurationJms.livraisonPersistante());
+        ControleFlux controleFlux = null;
+        if (fenetre > 0) {
+            // Les crédits rendus par les consommateurs arrivent sur la connexion : elle doit être démarrée
+            controleFlux = new ControleFlux(connection, fenetre);
+            publicateur.setControleFlux(controleFlux);
+            connection.start();
+        }
 
-        // 6. Tableau de produits pour simuler les commandes
+        // 4. Tableau de produits pour simuler les commandes
         String[] produits = {"Clavier", "Souris", "Écran", "Casque"};
 
-        // 7. Boucle pour envoyer 10 commandes
-        for (int i = 0; i < 10; i++) {
+        long debut = System.nanoTime();
+
+        // 5. Boucle d'envoi des commandes (le publicateur espace les envois selon le débit demandé)
+        for (int i = 0; i < nombre; i++) {
 
-            // 7.1 Génère un identifiant unique pour la commande
+            // 5.1 Génère un identifiant unique pour la commande
             String id = UUID.randomUUID().toString();
 
-            // 7.2 Choisit un produit aléatoirement dans le tableau
+            // 5.2 Choisit un produit aléatoirement dans le tableau
             String produit = produits[ThreadLocalRandom.current().nextInt(produits.length)];
 
-            // 7.3 Génère une quantité aléatoire entre 1 et 9
+            // 5.3 Génère une quantité aléatoire entre 1 et 9
             int quantite = ThreadLocalRandom.current().nextInt(1, 10);
 
-            // 7.4 Crée une instance de Commande (classe métier)
+            // 5.4 Crée une instance de Commande (classe métier)
             Commande commande = new Commande(id, produit, quantite);
 
-            // 7.5 Crée un message JMS contenant l'objet Commande
-            ObjectMessage message = session.createObjectMessage(commande);
+            // 5.5 Envoie la commande selon le mode choisi
+            publicateur.publier(commande);
 
-            // 7.6 Envoie le message vers la queue "COMMANDES"
-            producer.send(message);
+            // 5.6 Affiche la commande envoyée (seulement pour les petits volumes, la console limiterait le débit)
+            if (nombre <= 100) {
+                System.out.println("Commande envoyée : " + commande);
+            }
+        }
 
-            // 7.7 Affiche la commande envoyée (utile pour le suivi console)
-            System.out.println("Commande envoyée : " + commande);
+        // 6. Validation du dernier lot / attente des dernières confirmations
+        publicateur.close();
 
-            // 7.8 Pause de 1 seconde entre chaque envoi
-            Thread.sleep(1000);
+        long duree = System.nanoTime() - debut;
+        System.out.printf("%d commandes envoyées en %d ms (%s)%n", nombre, duree / 1_000_000, mode);
+        if (controleFlux != null) {
+            System.out.println("Débit final ajusté : " + publicateur.getDebit() + " commandes/s, attente de crédits : "
+                + controleFlux.getAttente() + ", crédits perdus récupérés : " + controleFlux.getRecuperes());
+            controleFlux.close();
         }
+        System.out.println(TraceLatence.globale().rapport());
 
-        // 8. Fermeture de la connexion JMS (nettoyage des ressources)
+        // 7. Fermeture de la connexion JMS (nettoyage des ressources)
         connection.close();
     }
 }
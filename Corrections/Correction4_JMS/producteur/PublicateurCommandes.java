@@ -0,0 +1,245 @@
+package producteur;
+
+import jakarta.jms.*;
+import modele.Commande;
+import mesure.HistogrammeLatence;
+import mesure.TraceLatence;
+import modele.CommandeCodec;
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publication des commandes sur la queue COMMANDES selon trois modes :
+ * - SYNCHRONE   : chaque envoi attend l'accusé du broker (comportement historique) ;
+ * - TRANSACTION : session transactionnelle, commit tous les N messages, ou T ms après le premier
+ *                 message du lot (commit déclenché par un minuteur, même sans nouvel envoi) ;
+ * - ASYNCHRONE  : envois sans attente, le broker confirme chaque message via un callback ;
+ *                 au plus tailleLot messages attendent leur confirmation à un instant donné.
+ * Le débit peut être limité (messages par seconde, 0 = illimité). Avec un ControleFlux,
+ * la publication est en plus bornée par les crédits rendus par les consommateurs et le débit
+ * s'ajuste chaque seconde à leur rythme, sans dépasser la limite initiale.
+ */
+public class PublicateurCommandes implements AutoCloseable {
+
+    public enum Mode { SYNCHRONE, TRANSACTION, ASYNCHRONE }
+
+    private final Mode mode;
+    private final Session session;
+    private final MessageProducer producer;
+    private final int tailleLot;
+    private final long delaiLotNanos;
+    private final int debitMax;
+    private long intervalleNanos;
+    private ControleFlux controleFlux;
+    private long dernierAjustement = System.nanoTime();
+
+    // Lot en cours (TRANSACTION), protégé par le verrou de l'objet : le minuteur le valide aussi
+    private int enCoursDansLot = 0;
+    private long debutLot = System.nanoTime();
+    private long numeroLot = 0;
+    private ScheduledFuture<?> echeanceLot;
+    private final ScheduledThreadPoolExecutor minuteur;
+    private long prochainEnvoi = System.nanoTime();
+
+    // Compteurs des envois asynchrones (mis à jour depuis le thread du transport ActiveMQ)
+    private final LongAdder confirmes = new LongAdder();
+    private final LongAdder erreurs = new LongAdder();
+    // Fenêtre des envois asynchrones non encore confirmés
+    private final Semaphore nonConfirmes;
+    // Envoi → accusé du broker (lot entier en TRANSACTION), voir TraceLatence
+    private final HistogrammeLatence publication = TraceLatence.globale().etape(TraceLatence.PUBLICATION);
+
+    public PublicateurCommandes(Connection connection, Mode mode, int tailleLot, long delaiLotMillis, int debitParSeconde) throws JMSException {
+        this.mode = mode;
+        this.session = connection.createSession(mode == Mode.TRANSACTION,
+            mode == Mode.TRANSACTION ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+        this.producer = session.createProducer(session.createQueue("COMMANDES"));
+        this.tailleLot = tailleLot;
+        this.delaiLotNanos = delaiLotMillis * 1_000_000L;
+        this.debitMax = debitParSeconde;
+        this.nonConfirmes = new Semaphore(tailleLot);
+        if (mode == Mode.TRANSACTION) {
+            minuteur = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "publicateur-lot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            minuteur.setRemoveOnCancelPolicy(true);
+        } else {
+            minuteur = null;
+        }
+        setDebit(debitParSeconde);
+    }
+
+    // Active la contre-pression par crédits (voir ControleFlux)
+    public void setControleFlux(ControleFlux controleFlux) {
+        this.controleFlux = controleFlux;
+    }
+
+    private void setDebit(int debitParSeconde) {
+        this.intervalleNanos = debitParSeconde > 0 ? 1_000_000_000L / debitParSeconde : 0;
+    }
+
+    // NON_PERSISTENT évite l'écriture disque côté broker, au prix des messages en transit en cas d'arrêt
+    public void setPersistant(boolean persistant) throws JMSException {
+        producer.setDeliveryMode(persistant ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+    }
+
+    public void publier(Commande commande) throws JMSException {
+        if (controleFlux != null) {
+            controleFlux.acquerir();
+            ajusterDebit();
+        }
+        attendreCreneau();
+
+        // Encodage binaire compact (voir CommandeCodec) plutôt que sérialisation Java
+        BytesMessage message = CommandeCodec.creerMessage(session, commande);
+        // Groupe de messages par produit : le broker le confie toujours au même consommateur
+        message.setStringProperty("JMSXGroupID", commande.getProduit());
+        message.setLongProperty(TraceLatence.ENVOI, TraceLatence.horodatage());
+        if (controleFlux != null) {
+            message.setIntProperty(ControleFlux.PROPRIETE_FENETRE, controleFlux.getFenetre());
+            message.setJMSReplyTo(controleFlux.getFileCredits());
+        }
+        long debut = System.nanoTime();
+        switch (mode) {
+            case SYNCHRONE -> {
+                producer.send(message);
+                publication.enregistrer(System.nanoTime() - debut);
+            }
+            case ASYNCHRONE -> {
+                nonConfirmes.acquireUninterruptibly();
+                ((ActiveMQMessageProducer) producer).send(message, new AsyncCallback() {
+                    @Override
+                    public void onSuccess() {
+                        publication.enregistrer(System.nanoTime() - debut);
+                        confirmes.increment();
+                        nonConfirmes.release();
+                    }
+
+                    @Override
+                    public void onException(JMSException e) {
+                        erreurs.increment();
+                        nonConfirmes.release();
+                        e.printStackTrace();
+                    }
+                });
+            }
+            case TRANSACTION -> envoyerDansLot(message);
+        }
+    }
+
+    private synchronized void envoyerDansLot(Message message) throws JMSException {
+        if (enCoursDansLot == 0) {
+            // Premier message du lot : le minuteur le validera au plus tard delaiLot après
+            debutLot = System.nanoTime();
+            long lot = numeroLot;
+            echeanceLot = minuteur.schedule(() -> validerSiEchu(lot), delaiLotNanos, TimeUnit.NANOSECONDS);
+        }
+        producer.send(message);
+        enCoursDansLot++;
+        if (enCoursDansLot >= tailleLot) {
+            validerLot();
+        }
+    }
+
+    // Sur le thread du minuteur : valide le lot s'il n'a pas déjà été validé entre-temps
+    private synchronized void validerSiEchu(long lot) {
+        if (lot != numeroLot || enCoursDansLot == 0) {
+            return;
+        }
+        int enCours = enCoursDansLot;
+        try {
+            validerLot();
+        } catch (JMSException e) {
+            // Personne pour recevoir l'exception : le lot est compté en erreur
+            erreurs.add(enCours);
+            e.printStackTrace();
+        }
+    }
+
+    // Termine le lot en cours (TRANSACTION) ou attend les confirmations en attente (ASYNCHRONE)
+    public void vider() throws JMSException {
+        if (mode == Mode.TRANSACTION) {
+            synchronized (this) {
+                if (enCoursDansLot > 0) {
+                    validerLot();
+                }
+            }
+        }
+        if (mode == Mode.ASYNCHRONE) {
+            // Toute la fenêtre redevient libre quand le dernier envoi est confirmé
+            nonConfirmes.acquireUninterruptibly(tailleLot);
+            nonConfirmes.release(tailleLot);
+        }
+    }
+
+    // Appelé sous le verrou de l'objet
+    private void validerLot() throws JMSException {
+        numeroLot++;
+        if (echeanceLot != null) {
+            echeanceLot.cancel(false);
+            echeanceLot = null;
+        }
+        int lot = enCoursDansLot;
+        enCoursDansLot = 0;
+        session.commit();
+        publication.enregistrer(System.nanoTime() - debutLot);
+        confirmes.add(lot);
+    }
+
+    // Une fois par seconde, aligne le débit sur celui des consommateurs (plafonné par debitMax)
+    private void ajusterDebit() {
+        long maintenant = System.nanoTime();
+        if (maintenant - dernierAjustement < 1_000_000_000L) {
+            return;
+        }
+        dernierAjustement = maintenant;
+        int conseille = controleFlux.debitConseille();
+        if (conseille > 0) {
+            setDebit(debitMax > 0 ? Math.min(conseille, debitMax) : conseille);
+        }
+    }
+
+    // Limitation de débit : espace les envois d'un intervalle fixe
+    private void attendreCreneau() {
+        if (intervalleNanos == 0) {
+            return;
+        }
+        long maintenant = System.nanoTime();
+        if (prochainEnvoi > maintenant) {
+            LockSupport.parkNanos(prochainEnvoi - maintenant);
+        }
+        prochainEnvoi = Math.max(prochainEnvoi, maintenant) + intervalleNanos;
+    }
+
+    // Messages confirmés par le broker (envoi synchrone non compté)
+    public long getConfirmes() {
+        return confirmes.sum();
+    }
+
+    public long getErreurs() {
+        return erreurs.sum();
+    }
+
+    // Débit courant (0 = illimité), ajusté par le contrôle de flux éventuel
+    public long getDebit() {
+        return intervalleNanos == 0 ? 0 : 1_000_000_000L / intervalleNanos;
+    }
+
+    @Override
+    public void close() throws JMSException {
+        vider();
+        if (minuteur != null) {
+            minuteur.shutdownNow();
+        }
+        session.close();
+    }
+}
@@ -1,55 +1,126 @@
 package superviseur;
 
 // Import des classes JMS nécessaires
+import broker.ConfigurationJms;
 import jakarta.jms.*;
+import mesure.TraceLatence;
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQPrefetchPolicy;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public class Superviseur {
+
+    // Usage : Superviseur [nom] [sélecteur JMS]
+    //   nom       : identifie l'abonnement durable (défaut "superviseur-1") ; un superviseur relancé
+    //               avec le même nom reçoit les alertes publiées pendant son absence
+    //   sélecteur : filtre appliqué par le broker, par exemple "severite = 'CRITIQUE'"
+    //               ou "produit IN ('Clavier', 'Souris') AND stock < 3"
+    //               (changer de sélecteur recrée l'abonnement durable et abandonne son arriéré)
     public static void main(String[] args) throws Exception {
+        String nom = args.length > 0 ? args[0] : "superviseur-1";
+        String selecteur = args.length > 1 ? args[1] : null;
 
-        // 1. Création de la fabrique de connexions JMS pour se connecter au broker ActiveMQ
-        ConnectionFactory factory = new ActiveMQConnectionFactory("tcp://localhost:61616");
+        // 1. Création de la fabrique de connexions JMS, réglée pour vider rapidement un arriéré
+        ConnectionFactory factory = creerFabrique(ConfigurationJms.url());
 
         // 2. Création de la connexion au broker
         Connection connection = factory.createConnection();
 
-        // 3. Définition d’un ID client — nécessaire **uniquement** si on souhaite un abonnement durable
-        connection.setClientID("superviseur-1"); // Utile si on veut activer les durable subscribers
+        // 3. Définition d’un ID client — nécessaire pour un abonnement durable
+        connection.setClientID(nom);
 
         // 4. Démarrage explicite de la connexion (obligatoire côté consommateur)
         connection.start();
 
-        // 5. Création d’une session non transactionnelle avec acquittement automatique
-        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        // 5. Session non transactionnelle ; DUPS_OK laisse le client acquitter par paquets
+        //    (un doublon éventuel après une panne ne fait que réafficher une alerte)
+        Session session = connection.createSession(false, Session.DUPS_OK_ACKNOWLEDGE);
 
         // 6. Accès (ou création) au topic nommé "ALERTES_STOCK"
         Topic topic = session.createTopic("ALERTES_STOCK");
 
-        // 7. Création d’un consommateur de messages sur le topic
-        // 👉 Ici c'est un **abonnement simple**, pas un abonnement durable (même si clientID est défini)
-        MessageConsumer consumer = session.createConsumer(topic);
+        // 7. Abonnement **durable**, filtré côté broker par le sélecteur éventuel
+        //    (les alertes portent les propriétés produit, stock, seuil, severite et commandesRegroupees)
+        MessageConsumer consumer = session.createDurableSubscriber(topic, nom, selecteur, false);
+
+        // 8. Rattrapage : l'arriéré accumulé pendant l'absence est vidé en lecture synchrone,
+        //    en ne gardant que la dernière alerte de chaque produit
+        Map<String, String> derniereParProduit = new TreeMap<>();
+        long debut = System.nanoTime();
+        long rattrapees = rattraper(consumer, 500, message -> {
+            try {
+                String produit = message.getStringProperty("produit");
+                derniereParProduit.put(produit != null ? produit : "?", formater((TextMessage) message));
+            } catch (JMSException e) {
+                e.printStackTrace();
+            }
+        });
+        if (rattrapees > 0) {
+            double secondes = (System.nanoTime() - debut) / 1e9;
+            System.out.printf("Rattrapage : %d alertes en %.0f ms (%.0f/s)%n", rattrapees, secondes * 1000, rattrapees / secondes);
+            derniereParProduit.values().forEach(System.out::println);
+        }
 
-        // 8. Définition du comportement asynchrone : exécution automatique lorsqu’un message est reçu
+        // 9. Définition du comportement asynchrone : exécution automatique lorsqu’un message est reçu
         consumer.setMessageListener(message -> {
             try {
-                // 8.1 On suppose que le message reçu est de type texte (TextMessage)
-                TextMessage textMessage = (TextMessage) message;
+                // 9.1 Latence du dernier saut et de bout en bout, d'après les horodatages portés par l'alerte
+                TraceLatence.globale().enregistrerDepuis(TraceLatence.TRANSIT_ALERTE, message, TraceLatence.ALERTE);
+                TraceLatence.globale().enregistrerDepuis(TraceLatence.BOUT_EN_BOUT, message, TraceLatence.COMMANDE);
 
-                // 8.2 Affichage du contenu de l'alerte sur la console
-                System.out.println("🔔 Alerte reçue : " + textMessage.getText());
+                // 9.2 On suppose que le message reçu est de type texte (TextMessage)
+                System.out.println(formater((TextMessage) message));
             } catch (Exception e) {
                 // En cas d’erreur, on affiche la trace
                 e.printStackTrace();
             }
         });
 
-        // 9. Message d'information pour l'utilisateur
-        System.out.println("Superviseur en écoute des alertes...");
+        // 10. Message d'information pour l'utilisateur
+        System.out.println("Superviseur " + nom + " en écoute des alertes...");
+        TraceLatence.globale().demarrerRapport(10);
 
-        // 10. Le superviseur reste actif 30 secondes avant de se fermer
+        // 11. Le superviseur reste actif 30 secondes avant de se fermer
         Thread.sleep(30000);
 
-        // 11. Fermeture de la connexion proprement
+        // 12. Fermeture de la connexion proprement (l'abonnement durable, lui, est conservé par le broker)
         connection.close();
     }
+
+    // Prefetch élevé et acquittements optimisés : le broker pousse l'arriéré par gros paquets
+    public static ActiveMQConnectionFactory creerFabrique(String url) {
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(url);
+        ActiveMQPrefetchPolicy prefetch = new ActiveMQPrefetchPolicy();
+        prefetch.setDurableTopicPrefetch(1000);
+        factory.setPrefetchPolicy(prefetch);
+        factory.setOptimizeAcknowledge(true);
+        return factory;
+    }
+
+    // Lit les messages en attente jusqu'à ce qu'aucun n'arrive pendant inactiviteMillis ; renvoie le nombre lu
+    public static long rattraper(MessageConsumer consumer, long inactiviteMillis,
+                                 Consumer<Message> traitement) throws JMSException {
+        long lus = 0;
+        Message message;
+        while ((message = consumer.receive(inactiviteMillis)) != null) {
+            traitement.accept(message);
+            lus++;
+        }
+        return lus;
+    }
+
+    // Affichage d'une alerte à partir de ses propriétés (texte brut pour les anciens producteurs)
+    static String formater(TextMessage alerte) throws JMSException {
+        if (!alerte.propertyExists("severite")) {
+            return "🔔 Alerte reçue : " + alerte.getText();
+        }
+        return "🔔 Alerte " + alerte.getStringProperty("severite")
+            + " : " + alerte.getStringProperty("produit")
+            + ", stock " + alerte.getIntProperty("stock")
+            + " (seuil " + alerte.getIntProperty("seuil")
+            + ", " + alerte.getIntProperty("commandesRegroupees") + " commande(s) regroupée(s))";
+    }
 }
@@ -0,0 +1,66 @@
+import agents.LiaisonLocale;
+import mbeans.StockManagerStandard;
+import mbeans.StockManagerStandardMBean;
+
+import javax.management.*;
+
+/**
+ * Coût par appel de getStock / replenishStock dans la même JVM selon la liaison :
+ * référence directe (LiaisonLocale), proxy MBeanServerInvocationHandler, et MBeanServer.invoke brut.
+ * Benchmark à base de main (pas de JMH dans ce projet) : préchauffage puis plusieurs mesures.
+ * Usage : BenchmarkLiaison [appels par mesure]
+ */
+public class BenchmarkLiaison {
+    private static volatile long puits;
+
+    public static void main(String[] args) throws Exception {
+        int appels = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName nom = new ObjectName("warehouse:type=StockStandard");
+        StockManagerStandard stock = new StockManagerStandard();
+        stock.addProduct("produit-A", 100);
+        LiaisonLocale.enregistrer(server, stock, nom);
+
+        StockManagerStandardMBean direct = LiaisonLocale.lier(server, nom, StockManagerStandardMBean.class);
+        StockManagerStandardMBean proxy = MBeanServerInvocationHandler.newProxyInstance(
+            server, nom, StockManagerStandardMBean.class, false);
+        System.out.println("Liaison locale directe : " + LiaisonLocale.estLocal(direct));
+
+        for (int tour = 0; tour < 3; tour++) {
+            System.out.println(tour == 0 ? "Préchauffage :" : "Mesure " + tour + " :");
+            mesurer("direct", appels, () -> {
+                direct.replenishStock("produit-A", 1);
+                return direct.getStock("produit-A");
+            });
+            mesurer("proxy", appels / 10, () -> {
+                proxy.replenishStock("produit-A", 1);
+                return proxy.getStock("produit-A");
+            });
+            Object[] parametresAjout = {"produit-A", 1};
+            String[] signatureAjout = {String.class.getName(), int.class.getName()};
+            Object[] parametresLecture = {"produit-A"};
+            String[] signatureLecture = {String.class.getName()};
+            mesurer("MBeanServer.invoke", appels / 10, () -> {
+                server.invoke(nom, "replenishStock", parametresAjout, signatureAjout);
+                return (Integer) server.invoke(nom, "getStock", parametresLecture, signatureLecture);
+            });
+        }
+    }
+
+    private interface Appel {
+        int executer() throws Exception;
+    }
+
+    // Une itération = un replenishStock + un getStock
+    private static void mesurer(String liaison, int iterations, Appel appel) throws Exception {
+        long somme = 0;
+        long debut = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            somme += appel.executer();
+        }
+        long duree = System.nanoTime() - debut;
+        puits = somme;
+        System.out.printf("  %-20s : %8.1f ns par appel%n", liaison, duree / (2.0 * iterations));
+    }
+}
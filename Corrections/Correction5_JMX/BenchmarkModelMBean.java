@@ -0,0 +1,69 @@
+import mbeans.ModelMBeanService;
+import mbeans.StockManagerStandard;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Une console interroge en boucle chaque attribut de la vue ModelMBean pendant quelques secondes ;
+ * on mesure le débit de lecture par attribut et on compte les lectures qui atteignent réellement
+ * le StockManagerStandard selon currencyTimeLimit (le Snapshot n'est jamais en cache).
+ * Le nombre de produits doit rester réaliste : avec une dizaine, le coût du Snapshot disparaît.
+ * Usage : BenchmarkModelMBean [produits] [durée s par attribut]
+ */
+public class BenchmarkModelMBean {
+    // Ressource gérée qui compte les accès reçus
+    public static class StockCompte extends StockManagerStandard {
+        final LongAdder acces = new LongAdder();
+
+        @Override
+        public long getTotalUnits() {
+            acces.increment();
+            return super.getTotalUnits();
+        }
+
+        @Override
+        public int getLowStockCount() {
+            acces.increment();
+            return super.getLowStockCount();
+        }
+
+        @Override
+        public TabularData getSnapshot() {
+            acces.increment();
+            return super.getSnapshot();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int produits = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int duree = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        for (int cache : new int[]{-1, 1, 5}) {
+            MBeanServer server = MBeanServerFactory.newMBeanServer();
+            StockCompte stock = new StockCompte();
+            for (int i = 0; i < produits; i++) {
+                stock.addProduct("SKU-" + i, i % 50);
+            }
+            ObjectName nom = new ObjectName("warehouse:type=StockModel");
+            server.registerMBean(new ModelMBeanService().createModelMBean(stock, cache), nom);
+
+            for (String attribut : new String[]{"TotalUnits", "LowStockCount", "Snapshot"}) {
+                long accesAvant = stock.acces.sum();
+                long lectures = 0;
+                long debut = System.nanoTime();
+                while (System.nanoTime() - debut < duree * 1_000_000_000L) {
+                    server.getAttribute(nom, attribut);
+                    lectures++;
+                }
+                double secondes = (System.nanoTime() - debut) / 1e9;
+                long acces = stock.acces.sum() - accesAvant;
+                System.out.printf("currencyTimeLimit=%d s, %-13s : %,12.0f lectures/s, %,d accès à la ressource (%.3f %%)%n",
+                    cache, attribut, lectures / secondes, acces, 100.0 * acces / lectures);
+            }
+        }
+    }
+}
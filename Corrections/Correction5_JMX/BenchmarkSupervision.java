@@ -0,0 +1,76 @@
+import mbeans.StockManagerStandard;
+import mbeans.StockManagerStandardMBean;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerConnection;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import javax.management.remote.*;
+import java.rmi.registry.LocateRegistry;
+
+/**
+ * Coût de supervision à distance d'un catalogue, via le connecteur JMX RMI (comme dans Main) :
+ * une invocation getStock par produit, comparée aux opérations groupées et aux agrégats.
+ * Usage : BenchmarkSupervision [produits] [port]
+ */
+public class BenchmarkSupervision {
+    public static void main(String[] args) throws Exception {
+        int produits = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9998;
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        StockManagerStandard stock = new StockManagerStandard();
+        String[] noms = new String[produits];
+        for (int i = 0; i < produits; i++) {
+            noms[i] = "SKU-" + i;
+            stock.addProduct(noms[i], i % 100);
+        }
+        ObjectName nom = new ObjectName("warehouse:type=StockStandard");
+        server.registerMBean(stock, nom);
+
+        LocateRegistry.createRegistry(port);
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://localhost:" + port + "/jmxrmi");
+        JMXConnectorServer cs = JMXConnectorServerFactory.newJMXConnectorServer(url, null, server);
+        cs.start();
+
+        try (JMXConnector connecteur = JMXConnectorFactory.connect(url)) {
+            MBeanServerConnection connexion = connecteur.getMBeanServerConnection();
+            StockManagerStandardMBean proxy = JMX.newMBeanProxy(connexion, nom, StockManagerStandardMBean.class);
+
+            for (int tour = 0; tour < 2; tour++) {
+                System.out.println(tour == 0 ? "Préchauffage :" : "Mesure :");
+
+                long debut = System.nanoTime();
+                long somme = 0;
+                for (String produit : noms) {
+                    somme += proxy.getStock(produit);
+                }
+                afficher("getStock x " + produits, debut, "total=" + somme);
+
+                debut = System.nanoTime();
+                somme = 0;
+                for (int quantite : proxy.getStocks(noms)) {
+                    somme += quantite;
+                }
+                afficher("getStocks (1 appel)", debut, "total=" + somme);
+
+                debut = System.nanoTime();
+                TabularData snapshot = proxy.getSnapshot();
+                afficher("getSnapshot (1 appel)", debut, snapshot.size() + " lignes");
+
+                debut = System.nanoTime();
+                String resume = "total=" + proxy.getTotalUnits() + " sousSeuil=" + proxy.getLowStockCount()
+                    + " plusBas=" + proxy.getLowestStocks(10).length;
+                afficher("agrégats (3 appels)", debut, resume);
+            }
+        }
+        cs.stop();
+        System.exit(0);
+    }
+
+    private static void afficher(String operation, long debut, String resultat) {
+        System.out.printf("  %-24s : %8.1f ms (%s)%n", operation, (System.nanoTime() - debut) / 1e6, resultat);
+    }
+}
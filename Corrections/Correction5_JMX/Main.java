@@ -14,7 +14,11 @@ public class Main {
 
         StockManagerStandard standard = new StockManagerStandard();
         ObjectName stdName = new ObjectName("warehouse:type=StockStandard");
-        server.registerMBean(standard, stdName);
+        LiaisonLocale.enregistrer(server, standard, stdName);
+
+        MetriquesEntrepot metriques = new MetriquesEntrepot();
+        standard.setMetriques(metriques);
+        server.registerMBean(metriques, new ObjectName("warehouse:type=Metrics"));
 
         StockManagerDynamic dynamic = new StockManagerDynamic();
         ObjectName dynName = new ObjectName("warehouse:type=StockDynamic");
@@ -22,10 +26,11 @@ public class Main {
 
         CommandeNotifier notifier = new CommandeNotifier();
         ObjectName notifName = new ObjectName("warehouse:type=CommandeNotifier");
-        server.registerMBean(notifier, notifName);
+        LiaisonLocale.enregistrer(server, notifier, notifName);
 
         ModelMBeanService modelService = new ModelMBeanService();
-        RequiredModelMBean modelMBean = modelService.createModelMBean();
+        // Vue du même stock que le MBean standard, attributs en cache 5 secondes pour les consoles
+        RequiredModelMBean modelMBean = modelService.createModelMBean(standard, 5);
         ObjectName modelName = new ObjectName("warehouse:type=StockModel");
         server.registerMBean(modelMBean, modelName);
 
@@ -37,6 +42,8 @@ public class Main {
         cs.start();
         System.out.println("Serveur JMX exposé via RMI sur port 9999...");
 
+        // Les agents tournent dans cette JVM : LiaisonLocale leur donne une référence directe
+        // sur le stock et le notificateur plutôt qu'un proxy JMX
         new Thread(new AgentDeCommande()).start();
         new Thread(new AgentDeReapprovisionnement()).start();
     }
@@ -4,7 +4,6 @@ import mbeans.CommandeNotificationMBean;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
-import javax.management.MBeanServerInvocationHandler;
 import java.lang.management.ManagementFactory;
 import java.util.UUID;
 
@@ -14,9 +13,7 @@ public class AgentDeCommande implements Runnable {
         try {
             MBeanServer server = ManagementFactory.getPlatformMBeanServer();
             ObjectName name = new ObjectName("warehouse:type=CommandeNotifier");
-            CommandeNotificationMBean mbean = MBeanServerInvocationHandler.newProxyInstance(
-                server, name, CommandeNotificationMBean.class, false
-            );
+            CommandeNotificationMBean mbean = LiaisonLocale.lier(server, name, CommandeNotificationMBean.class);
 
             while (true) {
                 Thread.sleep(15000);
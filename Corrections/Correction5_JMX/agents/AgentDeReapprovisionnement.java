@@ -11,12 +11,10 @@ public class AgentDeReapprovisionnement implements Runnable {
         try {
             MBeanServer server = ManagementFactory.getPlatformMBeanServer();
             ObjectName name = new ObjectName("warehouse:type=StockStandard");
-            StockManagerStandardMBean proxy = MBeanServerInvocationHandler.newProxyInstance(
-                server, name, StockManagerStandardMBean.class, false
-            );
+            StockManagerStandardMBean stock = LiaisonLocale.lier(server, name, StockManagerStandardMBean.class);
 
             while (true) {
-                proxy.replenishStock("produit-A", 10);
+                stock.replenishStock("produit-A", 10);
                 System.out.println("Réapprovisionnement automatique effectué.");
                 Thread.sleep(10000);
             }
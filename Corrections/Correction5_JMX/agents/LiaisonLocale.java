@@ -0,0 +1,76 @@
+package agents;
+
+import javax.management.*;
+import javax.management.relation.MBeanServerNotificationFilter;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Liaison des agents à leurs MBeans.
+ *
+ * Un MBean enregistré par enregistrer() reste connu par sa référence Java. Un agent qui le demande
+ * au même MBeanServer obtient alors directement cette référence typée : pas de réflexion, de recherche
+ * dans le MBeanServer ni de boxing des arguments. Sinon (serveur distant, MBean enregistré autrement,
+ * ou remplacé depuis), l'agent reçoit un proxy MBeanServerInvocationHandler, comme avant.
+ *
+ * Un appel direct contourne le MBeanServer : pas de contrôle d'accès JMX ni d'intercepteur.
+ *
+ * Pour savoir qu'un MBean a été remplacé, LiaisonLocale écoute les désenregistrements du serveur
+ * (MBeanServerDelegate) : un MBean désenregistré, quel que soit le moyen employé, est aussitôt oublié.
+ * Tant que la référence est connue, c'est donc bien cette instance qui est enregistrée sous ce nom.
+ */
+public final class LiaisonLocale {
+    private record Cle(MBeanServerConnection serveur, ObjectName nom) {}
+
+    // Clé comparée par identité du serveur : deux serveurs distincts n'ont rien en commun
+    private static final Map<Cle, Object> locaux = new ConcurrentHashMap<>();
+    // Serveurs dont les désenregistrements sont déjà écoutés
+    private static final Set<MBeanServer> ecoutes = ConcurrentHashMap.newKeySet();
+
+    private LiaisonLocale() {
+    }
+
+    public static ObjectInstance enregistrer(MBeanServer serveur, Object mbean, ObjectName nom)
+            throws InstanceAlreadyExistsException, MBeanRegistrationException, NotCompliantMBeanException {
+        ecouterDesenregistrements(serveur);
+        ObjectInstance instance = serveur.registerMBean(mbean, nom);
+        locaux.put(new Cle(serveur, instance.getObjectName()), mbean);
+        return instance;
+    }
+
+    public static void desenregistrer(MBeanServer serveur, ObjectName nom) throws InstanceNotFoundException, MBeanRegistrationException {
+        locaux.remove(new Cle(serveur, nom));
+        serveur.unregisterMBean(nom);
+    }
+
+    public static <T> T lier(MBeanServerConnection serveur, ObjectName nom, Class<T> interfaceMBean) {
+        Object local = locaux.get(new Cle(serveur, nom));
+        if (local != null && interfaceMBean.isInstance(local)) {
+            return interfaceMBean.cast(local);
+        }
+        return MBeanServerInvocationHandler.newProxyInstance(serveur, nom, interfaceMBean, false);
+    }
+
+    public static boolean estLocal(Object liaison) {
+        return !java.lang.reflect.Proxy.isProxyClass(liaison.getClass());
+    }
+
+    // Les notifications du délégué sont émises dans le thread qui désenregistre : au retour de
+    // unregisterMBean, la référence est déjà oubliée
+    private static void ecouterDesenregistrements(MBeanServer serveur) {
+        if (!ecoutes.add(serveur)) {
+            return;
+        }
+        MBeanServerNotificationFilter filtre = new MBeanServerNotificationFilter();
+        filtre.enableAllObjectNames();
+        filtre.disableType(MBeanServerNotification.REGISTRATION_NOTIFICATION);
+        try {
+            serveur.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, (notification, handback) ->
+                locaux.remove(new Cle(serveur, ((MBeanServerNotification) notification).getMBeanName())), filtre, null);
+        } catch (InstanceNotFoundException e) {
+            ecoutes.remove(serveur);
+            throw new IllegalStateException("MBeanServerDelegate introuvable", e);
+        }
+    }
+}
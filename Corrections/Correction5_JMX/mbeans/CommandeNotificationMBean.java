@@ -2,4 +2,11 @@ package mbeans;
 
 public interface CommandeNotificationMBean {
     void sendOrderNotification(String orderId, String status);
-}
\ No newline at end of file
+
+    // Statistiques de diffusion
+    long getDispatchedCount();
+    long getDroppedCount();
+    int getPendingCount();
+    double getAverageDispatchLatencyMicros();
+    double getMaxDispatchLatencyMicros();
+}
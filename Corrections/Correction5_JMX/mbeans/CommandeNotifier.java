@@ -2,16 +2,143 @@ package mbeans;
 
 import javax.management.*;
 import javax.management.NotificationBroadcasterSupport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Notifications de commande diffusées de façon asynchrone : sendOrderNotification() se contente
+ * de déposer l'événement dans une file bornée, un thread dédié le transmet aux écouteurs.
+ * Un écouteur lent (distant) ne ralentit donc plus l'appelant ; si la file est pleine,
+ * l'événement est abandonné et compté.
+ *
+ * Avec un intervalle de regroupement, les événements reçus pendant l'intervalle partent en une
+ * seule notification "commande.lot" dont userData contient les lignes "orderId:status".
+ */
 public class CommandeNotifier extends NotificationBroadcasterSupport implements CommandeNotificationMBean {
-    private long seq = 1;
+    public static final String TYPE_ALERTE = "commande.alert";
+    public static final String TYPE_LOT = "commande.lot";
+
+    private record Evenement(String orderId, String status, long nanos) {}
+
+    private final AtomicLong seq = new AtomicLong(1);
+    private final BlockingQueue<Evenement> file;
+    private final long intervalleLotMillis;
+
+    private final LongAdder diffusees = new LongAdder();
+    private final LongAdder abandonnees = new LongAdder();
+    private final LongAdder latenceTotale = new LongAdder();
+    private final LongAccumulator latenceMax = new LongAccumulator(Long::max, 0);
+
+    // File de 10 000 événements, une notification par événement
+    public CommandeNotifier() {
+        this(10_000, 0);
+    }
+
+    // intervalleLotMillis : 0 = une notification par événement, sinon une notification groupée par intervalle
+    public CommandeNotifier(int capacite, long intervalleLotMillis) {
+        this.file = new ArrayBlockingQueue<>(capacite);
+        this.intervalleLotMillis = intervalleLotMillis;
+        Thread diffuseur = new Thread(this::diffuser, "diffuseur-notifications");
+        diffuseur.setDaemon(true);
+        diffuseur.start();
+    }
 
     @Override
     public void sendOrderNotification(String orderId, String status) {
+        if (!file.offer(new Evenement(orderId, status, System.nanoTime()))) {
+            abandonnees.increment();
+        }
+    }
+
+    private void diffuser() {
+        List<Evenement> lot = new ArrayList<>();
+        try {
+            while (true) {
+                if (intervalleLotMillis > 0) {
+                    Thread.sleep(intervalleLotMillis);
+                    file.drainTo(lot);
+                    if (!lot.isEmpty()) {
+                        emettreLot(lot);
+                        lot.clear();
+                    }
+                } else {
+                    emettre(file.take());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void emettre(Evenement evenement) {
         Notification notif = new Notification(
-            "commande.alert", this, seq++,
-            "Commande " + orderId + " - statut : " + status
+            TYPE_ALERTE, this, seq.getAndIncrement(),
+            "Commande " + evenement.orderId() + " - statut : " + evenement.status()
         );
+        mesurer(evenement);
         sendNotification(notif);
     }
-}
\ No newline at end of file
+
+    private void emettreLot(List<Evenement> lot) {
+        String[] lignes = new String[lot.size()];
+        for (int i = 0; i < lignes.length; i++) {
+            Evenement evenement = lot.get(i);
+            lignes[i] = evenement.orderId() + ":" + evenement.status();
+            mesurer(evenement);
+        }
+        Notification notif = new Notification(
+            TYPE_LOT, this, seq.getAndIncrement(),
+            lignes.length + " commande(s) depuis la dernière notification"
+        );
+        notif.setUserData(lignes);
+        sendNotification(notif);
+    }
+
+    // Latence de diffusion : dépôt dans la file → prise en charge par le diffuseur
+    private void mesurer(Evenement evenement) {
+        long latence = System.nanoTime() - evenement.nanos();
+        diffusees.increment();
+        latenceTotale.add(latence);
+        latenceMax.accumulate(latence);
+    }
+
+    @Override
+    public MBeanNotificationInfo[] getNotificationInfo() {
+        return new MBeanNotificationInfo[]{
+            new MBeanNotificationInfo(new String[]{TYPE_ALERTE}, Notification.class.getName(), "Événement de commande"),
+            new MBeanNotificationInfo(new String[]{TYPE_LOT}, Notification.class.getName(),
+                "Événements de commande regroupés (userData : String[] \"orderId:status\")")
+        };
+    }
+
+    @Override
+    public long getDispatchedCount() {
+        return diffusees.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return abandonnees.sum();
+    }
+
+    @Override
+    public int getPendingCount() {
+        return file.size();
+    }
+
+    @Override
+    public double getAverageDispatchLatencyMicros() {
+        long n = diffusees.sum();
+        return n == 0 ? 0.0 : latenceTotale.sum() / (n * 1e3);
+    }
+
+    @Override
+    public double getMaxDispatchLatencyMicros() {
+        return latenceMax.get() / 1e3;
+    }
+}
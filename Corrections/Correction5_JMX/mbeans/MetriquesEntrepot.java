@@ -0,0 +1,208 @@
+package mbeans;
+
+import javax.management.AttributeChangeNotification;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métriques de performance de l'entrepôt (warehouse:type=Metrics).
+ *
+ * Chaque opération de stock enregistre sa durée une seule fois, dans l'histogramme de la période
+ * en cours (sans verrou, compteurs répartis par thread : voir HistogrammeLatence) ; la lecture des
+ * métriques ne bloque jamais les écritures. À chaque période, l'échantillonneur remplace cet
+ * histogramme par un neuf, en tire les débits et le p99 de la période, puis l'ajoute au cumul :
+ * les percentiles cumulés ont donc jusqu'à une période de retard. Il mesure aussi l'allocation
+ * mémoire, et le franchissement du seuil de p99 dans un sens ou dans l'autre émet une notification.
+ */
+public class MetriquesEntrepot extends NotificationBroadcasterSupport implements MetriquesEntrepotMXBean {
+    public static final String TYPE_DEPASSEMENT = "warehouse.latence.depassement";
+    public static final String TYPE_RETOUR = "warehouse.latence.retour";
+
+    // Une paire d'histogrammes par opération : période en cours (écrite) et cumul des périodes écoulées
+    private volatile HistogrammeLatence replenishPeriode = new HistogrammeLatence();
+    private final HistogrammeLatence replenish = new HistogrammeLatence();
+    private volatile HistogrammeLatence getStockPeriode = new HistogrammeLatence();
+    private final HistogrammeLatence getStock = new HistogrammeLatence();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicLong seq = new AtomicLong(1);
+    private final long periodeMillis;
+    private volatile long seuilMicros = 1000;
+
+    // Valeurs calculées par l'échantillonneur
+    private volatile double debitReplenish;
+    private volatile double debitGetStock;
+    private volatile double allocationMoParSeconde;
+    private long allocationPrecedente = octetsAlloues();
+    private boolean enDepassement;
+
+    private final ScheduledExecutorService echantillonneur = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "echantillonneur-metriques");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public MetriquesEntrepot() {
+        this(1000);
+    }
+
+    public MetriquesEntrepot(long periodeMillis) {
+        this.periodeMillis = periodeMillis;
+        echantillonneur.scheduleAtFixedRate(this::echantillonner, periodeMillis, periodeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Appelés sur le chemin critique par StockManagerStandard
+    public void enregistrerReplenish(long nanos) {
+        replenishPeriode.enregistrer(nanos);
+    }
+
+    public void enregistrerGetStock(long nanos) {
+        getStockPeriode.enregistrer(nanos);
+    }
+
+    private void echantillonner() {
+        double secondes = periodeMillis / 1000.0;
+        HistogrammeLatence r = replenishPeriode;
+        HistogrammeLatence g = getStockPeriode;
+        replenishPeriode = new HistogrammeLatence();
+        getStockPeriode = new HistogrammeLatence();
+        debitReplenish = r.getNombre() / secondes;
+        debitGetStock = g.getNombre() / secondes;
+        long p99 = Math.max(r.percentileNanos(0.99), g.percentileNanos(0.99)) / 1000;
+        // Un enregistrement en vol pendant le remplacement peut manquer au cumul : sans gravité
+        replenish.ajouter(r);
+        getStock.ajouter(g);
+
+        long allocation = octetsAlloues();
+        allocationMoParSeconde = Math.max(0, allocation - allocationPrecedente) / (secondes * 1024 * 1024);
+        allocationPrecedente = allocation;
+
+        // Une période sans opération ne dit rien de la latence : l'état est conservé
+        boolean actif = debitReplenish + debitGetStock > 0;
+        if (actif && p99 > seuilMicros != enDepassement) {
+            enDepassement = !enDepassement;
+            Notification notif = new Notification(enDepassement ? TYPE_DEPASSEMENT : TYPE_RETOUR, this, seq.getAndIncrement(),
+                (enDepassement ? "Latence p99 au-dessus du seuil : " : "Latence p99 revenue sous le seuil : ")
+                    + p99 + " µs (seuil " + seuilMicros + " µs)");
+            notif.setUserData(p99);
+            sendNotification(notif);
+        }
+    }
+
+    // Octets alloués par les threads vivants (les threads terminés ne sont plus comptés)
+    private long octetsAlloues() {
+        if (threads instanceof com.sun.management.ThreadMXBean etendu && etendu.isThreadAllocatedMemorySupported()) {
+            long total = 0;
+            for (long octets : etendu.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                total += Math.max(0, octets);
+            }
+            return total;
+        }
+        return 0;
+    }
+
+    @Override
+    public double getReplenishStockRate() {
+        return debitReplenish;
+    }
+
+    @Override
+    public double getGetStockRate() {
+        return debitGetStock;
+    }
+
+    @Override
+    public double getReplenishStockP50Micros() {
+        return replenish.percentileNanos(0.50) / 1e3;
+    }
+
+    @Override
+    public double getReplenishStockP99Micros() {
+        return replenish.percentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getReplenishStockP999Micros() {
+        return replenish.percentileNanos(0.999) / 1e3;
+    }
+
+    @Override
+    public double getGetStockP50Micros() {
+        return getStock.percentileNanos(0.50) / 1e3;
+    }
+
+    @Override
+    public double getGetStockP99Micros() {
+        return getStock.percentileNanos(0.99) / 1e3;
+    }
+
+    @Override
+    public double getGetStockP999Micros() {
+        return getStock.percentileNanos(0.999) / 1e3;
+    }
+
+    @Override
+    public long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    @Override
+    public long getGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    @Override
+    public double getAllocationRateMBPerSecond() {
+        return allocationMoParSeconde;
+    }
+
+    @Override
+    public long getHeapUsedBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long getLatencyThresholdMicros() {
+        return seuilMicros;
+    }
+
+    @Override
+    public void setLatencyThresholdMicros(long seuil) {
+        long ancien = seuilMicros;
+        seuilMicros = seuil;
+        sendNotification(new AttributeChangeNotification(this, seq.getAndIncrement(), System.currentTimeMillis(),
+            "Seuil de latence modifié", "LatencyThresholdMicros", "long", ancien, seuil));
+    }
+
+    @Override
+    public void reset() {
+        replenish.reinitialiser();
+        getStock.reinitialiser();
+    }
+
+    @Override
+    public MBeanNotificationInfo[] getNotificationInfo() {
+        return new MBeanNotificationInfo[]{
+            new MBeanNotificationInfo(new String[]{TYPE_DEPASSEMENT, TYPE_RETOUR}, Notification.class.getName(),
+                "Franchissement du seuil de latence p99 (userData : p99 en µs)"),
+            new MBeanNotificationInfo(new String[]{AttributeChangeNotification.ATTRIBUTE_CHANGE},
+                AttributeChangeNotification.class.getName(), "Modification du seuil")
+        };
+    }
+}
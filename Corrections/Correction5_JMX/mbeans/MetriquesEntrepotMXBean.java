@@ -0,0 +1,27 @@
+package mbeans;
+
+public interface MetriquesEntrepotMXBean {
+    // Débits (opérations par seconde) sur la dernière période d'échantillonnage
+    double getReplenishStockRate();
+    double getGetStockRate();
+
+    // Percentiles de latence depuis le démarrage, en microsecondes
+    double getReplenishStockP50Micros();
+    double getReplenishStockP99Micros();
+    double getReplenishStockP999Micros();
+    double getGetStockP50Micros();
+    double getGetStockP99Micros();
+    double getGetStockP999Micros();
+
+    // JVM, d'après les MXBeans de la plateforme
+    long getGcCount();
+    long getGcTimeMillis();
+    double getAllocationRateMBPerSecond();
+    long getHeapUsedBytes();
+
+    // Seuil de p99 (sur la dernière période) au-delà duquel une notification est émise
+    long getLatencyThresholdMicros();
+    void setLatencyThresholdMicros(long seuil);
+
+    void reset();
+}
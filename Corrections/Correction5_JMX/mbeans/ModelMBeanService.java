@@ -2,19 +2,102 @@ package mbeans;
 
 import javax.management.*;
 import javax.management.modelmbean.*;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
+/**
+ * Vue ModelMBean d'un StockManagerStandard, décrite entièrement par des descripteurs.
+ *
+ * Les attributs agrégés sont mis en cache par le RequiredModelMBean pendant currencyTimeLimit
+ * secondes : une console qui interroge en boucle ne relit la ressource qu'une fois par période.
+ * Contrepartie : une modification faite sans passer par cette vue (agents, MBean standard)
+ * n'y apparaît qu'à l'expiration du cache.
+ *
+ * Le Snapshot, lui, n'est jamais mis en cache : le RequiredModelMBean conserve la valeur en cache
+ * dans le descripteur de l'attribut, et pour un gros TabularData (1 000 produits) la servir de là
+ * coûte plus cher que relire la ressource (voir BenchmarkModelMBean). Les opérations ne sont pas
+ * non plus mises en cache : le RequiredModelMBean ignore les paramètres, getStock("A") renverrait
+ * la valeur de getStock("B").
+ */
 public class ModelMBeanService {
+    // Vue d'un stock vide, attributs en cache 5 secondes
     public RequiredModelMBean createModelMBean() throws Exception {
+        return createModelMBean(new StockManagerStandard(), 5);
+    }
+
+    // cacheSecondes : currencyTimeLimit des attributs ; -1 = ressource relue à chaque lecture, 0 = lue une seule fois
+    public RequiredModelMBean createModelMBean(StockManagerStandard impl, int cacheSecondes) throws Exception {
+        ModelMBeanAttributeInfo[] attributs = {
+            attribut("ProductCount", int.class, "Nombre de produits", "getProductCount", null, cacheSecondes),
+            attribut("TotalUnits", long.class, "Unités en stock, tous produits confondus", "getTotalUnits", null, cacheSecondes),
+            attribut("LowStockCount", int.class, "Produits sous le seuil bas", "getLowStockCount", null, cacheSecondes),
+            attribut("LowStockThreshold", int.class, "Seuil bas", "getLowStockThreshold", "setLowStockThreshold", cacheSecondes),
+            attribut("Snapshot", TabularData.class, "Stock de tous les produits", "getSnapshot", null, -1)
+        };
+
+        ModelMBeanOperationInfo[] operations = {
+            // Accesseurs des attributs : un ModelMBean ne peut appeler que des opérations déclarées
+            operation("getProductCount", int.class, "getter", "Nombre de produits", MBeanOperationInfo.INFO),
+            operation("getTotalUnits", long.class, "getter", "Unités en stock", MBeanOperationInfo.INFO),
+            operation("getLowStockCount", int.class, "getter", "Produits sous le seuil bas", MBeanOperationInfo.INFO),
+            operation("getLowStockThreshold", int.class, "getter", "Seuil bas", MBeanOperationInfo.INFO),
+            operation("setLowStockThreshold", void.class, "setter", "Modifie le seuil bas", MBeanOperationInfo.ACTION,
+                parametre("seuil", int.class, "Nouveau seuil")),
+            operation("getSnapshot", TabularData.class, "getter", "Stock de tous les produits", MBeanOperationInfo.INFO),
+
+            operation("getStock", int.class, "operation", "Stock d'un produit", MBeanOperationInfo.INFO,
+                parametre("produit", String.class, "Produit")),
+            operation("getStocks", int[].class, "operation", "Stock de plusieurs produits", MBeanOperationInfo.INFO,
+                parametre("produits", String[].class, "Produits")),
+            operation("getLowestStocks", CompositeData[].class, "operation", "Produits les moins approvisionnés", MBeanOperationInfo.INFO,
+                parametre("n", int.class, "Nombre de produits")),
+            operation("addProduct", void.class, "operation", "Ajoute un produit", MBeanOperationInfo.ACTION,
+                parametre("produit", String.class, "Produit"), parametre("quantite", int.class, "Quantité initiale")),
+            operation("replenishStock", void.class, "operation", "Réapprovisionne un produit", MBeanOperationInfo.ACTION,
+                parametre("produit", String.class, "Produit"), parametre("quantite", int.class, "Quantité ajoutée"))
+        };
+
+        Descriptor descripteurMBean = new DescriptorSupport(
+            "name=StockModel", "descriptorType=mbean", "displayName=Stock (ModelMBean)",
+            "currencyTimeLimit=" + cacheSecondes
+        );
+
         ModelMBeanInfo mbeanInfo = new ModelMBeanInfoSupport(
             StockManagerStandard.class.getName(),
             "ModelMBean stock avancé",
-            null, null, null, null
+            attributs, null, operations, null, descripteurMBean
         );
 
         RequiredModelMBean modelMBean = new RequiredModelMBean(mbeanInfo);
-        StockManagerStandard impl = new StockManagerStandard();
         modelMBean.setManagedResource(impl, "ObjectReference");
 
         return modelMBean;
     }
-}
\ No newline at end of file
+
+    private static ModelMBeanAttributeInfo attribut(String nom, Class<?> type, String description,
+                                                    String getter, String setter, int cacheSecondes) {
+        DescriptorSupport descripteur = new DescriptorSupport(
+            "name=" + nom, "descriptorType=attribute", "displayName=" + description,
+            "getMethod=" + getter, "currencyTimeLimit=" + cacheSecondes
+        );
+        if (setter != null) {
+            descripteur.setField("setMethod", setter);
+        }
+        return new ModelMBeanAttributeInfo(nom, type.getName(), description, true, setter != null, false, descripteur);
+    }
+
+    private static ModelMBeanOperationInfo operation(String nom, Class<?> retour, String role, String description,
+                                                     int impact, MBeanParameterInfo... parametres) {
+        Descriptor descripteur = new DescriptorSupport(
+            "name=" + nom, "descriptorType=operation", "role=" + role, "displayName=" + description,
+            // Pas de cache pour les opérations (voir l'en-tête de la classe) ; pour le RequiredModelMBean
+            // du JDK, -1 signifie « jamais en cache » et 0 « toujours en cache »
+            "currencyTimeLimit=-1"
+        );
+        return new ModelMBeanOperationInfo(nom, description, parametres, retour.getName(), impact, descripteur);
+    }
+
+    private static MBeanParameterInfo parametre(String nom, Class<?> type, String description) {
+        return new MBeanParameterInfo(nom, type.getName(), description);
+    }
+}
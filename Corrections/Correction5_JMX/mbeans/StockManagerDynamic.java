@@ -2,49 +2,159 @@ package mbeans;
 
 import javax.management.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * MBean dynamique : un attribut int par produit (lecture/écriture) et trois opérations,
+ * addProduct, replenishStock et withdrawStock.
+ *
+ * - Le stock est un compteur atomique par produit : les mises à jour concurrentes ne se perdent pas.
+ * - Le MBeanInfo est mis en cache et reconstruit seulement quand la liste des produits change.
+ * - invoke() trouve l'opération dans une table construite une fois pour toutes.
+ */
 public class StockManagerDynamic implements DynamicMBean {
-    private final Map<String, Integer> stock = new HashMap<>();
+    private static final String[] SIGNATURE = {String.class.getName(), int.class.getName()};
+    private static final MBeanOperationInfo[] OPERATIONS = {
+        operation("addProduct", "Ajoute un produit avec sa quantité initiale", "void"),
+        operation("replenishStock", "Ajoute une quantité au stock d'un produit", "void"),
+        operation("withdrawStock", "Retire une quantité du stock d'un produit et renvoie le reste", int.class.getName())
+    };
+
+    @FunctionalInterface
+    private interface Operation {
+        Object executer(String produit, int quantite) throws MBeanException;
+    }
+
+    private final Map<String, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private final Map<String, Operation> operations = Map.of(
+        "addProduct", (produit, quantite) -> {
+            ajouter(produit, quantite);
+            return null;
+        },
+        "replenishStock", (produit, quantite) -> {
+            compteur(produit).addAndGet(quantite);
+            return null;
+        },
+        "withdrawStock", this::retirer
+    );
+    // Les produits ne sont jamais supprimés : le cache est à jour tant que leur nombre n'a pas changé
+    private record InfoEnCache(MBeanInfo info, int produits) {}
+    private volatile InfoEnCache info = new InfoEnCache(construireInfo(), 0);
 
     @Override
-    public Object getAttribute(String attribute) {
-        return stock.getOrDefault(attribute, 0);
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        AtomicInteger quantite = stock.get(attribute);
+        if (quantite == null) {
+            throw new AttributeNotFoundException("Produit inconnu : " + attribute);
+        }
+        return quantite.get();
     }
 
     @Override
-    public void setAttribute(Attribute attribute) {
-        stock.put(attribute.getName(), (Integer) attribute.getValue());
+    public void setAttribute(Attribute attribute) throws InvalidAttributeValueException {
+        if (!(attribute.getValue() instanceof Integer quantite)) {
+            throw new InvalidAttributeValueException("Quantité entière attendue pour " + attribute.getName());
+        }
+        ajouter(attribute.getName(), quantite);
     }
 
+    // Un seul passage ; les produits inconnus sont omis de la réponse, comme le prévoit JMX
     @Override
     public AttributeList getAttributes(String[] attributes) {
-        AttributeList list = new AttributeList();
+        AttributeList list = new AttributeList(attributes.length);
         for (String attr : attributes) {
-            list.add(new Attribute(attr, getAttribute(attr)));
+            AtomicInteger quantite = stock.get(attr);
+            if (quantite != null) {
+                list.add(new Attribute(attr, quantite.get()));
+            }
         }
         return list;
     }
 
     @Override
     public AttributeList setAttributes(AttributeList attributes) {
-        AttributeList list = new AttributeList();
+        AttributeList list = new AttributeList(attributes.size());
         for (Attribute attr : attributes.asList()) {
-            setAttribute(attr);
-            list.add(attr);
+            if (attr.getValue() instanceof Integer quantite) {
+                ajouter(attr.getName(), quantite);
+                list.add(attr);
+            }
         }
         return list;
     }
 
     @Override
-    public Object invoke(String actionName, Object[] params, String[] signature) {
-        return null;
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        Operation operation = operations.get(actionName);
+        if (operation == null) {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "Opération inconnue : " + actionName);
+        }
+        if (params == null || params.length != 2 || !(params[0] instanceof String produit) || !(params[1] instanceof Integer quantite)) {
+            throw new ReflectionException(new IllegalArgumentException(actionName + "(String produit, int quantite) attendu"));
+        }
+        return operation.executer(produit, quantite);
     }
 
     @Override
     public MBeanInfo getMBeanInfo() {
+        InfoEnCache courant = info;
+        int produits = stock.size();
+        if (courant.produits() != produits) {
+            courant = new InfoEnCache(construireInfo(), produits);
+            info = courant;
+        }
+        return courant.info();
+    }
+
+    private MBeanInfo construireInfo() {
+        String[] produits = stock.keySet().toArray(new String[0]);
+        Arrays.sort(produits);
+        MBeanAttributeInfo[] attributs = new MBeanAttributeInfo[produits.length];
+        for (int i = 0; i < produits.length; i++) {
+            attributs[i] = new MBeanAttributeInfo(produits[i], int.class.getName(),
+                "Stock du produit " + produits[i], true, true, false);
+        }
         return new MBeanInfo(
             this.getClass().getName(), "Stock Dynamic MBean",
-            new MBeanAttributeInfo[0], null, null, null
+            attributs, null, OPERATIONS, null
         );
     }
-}
\ No newline at end of file
+
+    private void ajouter(String produit, int quantite) {
+        AtomicInteger existant = stock.putIfAbsent(produit, new AtomicInteger(quantite));
+        if (existant != null) {
+            existant.set(quantite);
+        }
+    }
+
+    private AtomicInteger compteur(String produit) throws MBeanException {
+        AtomicInteger quantite = stock.get(produit);
+        if (quantite == null) {
+            throw new MBeanException(new IllegalArgumentException("Produit inconnu : " + produit));
+        }
+        return quantite;
+    }
+
+    // Le retrait est refusé si le stock est insuffisant (le stock ne devient jamais négatif)
+    private Integer retirer(String produit, int quantite) throws MBeanException {
+        AtomicInteger compteur = compteur(produit);
+        while (true) {
+            int disponible = compteur.get();
+            if (disponible < quantite) {
+                throw new MBeanException(new IllegalStateException("Stock insuffisant pour " + produit + " : " + disponible));
+            }
+            if (compteur.compareAndSet(disponible, disponible - quantite)) {
+                return disponible - quantite;
+            }
+        }
+    }
+
+    private static MBeanOperationInfo operation(String nom, String description, String typeRetour) {
+        MBeanParameterInfo[] parametres = {
+            new MBeanParameterInfo("produit", SIGNATURE[0], "Produit"),
+            new MBeanParameterInfo("quantite", SIGNATURE[1], "Quantité")
+        };
+        return new MBeanOperationInfo(nom, description, parametres, typeRetour, MBeanOperationInfo.ACTION);
+    }
+}
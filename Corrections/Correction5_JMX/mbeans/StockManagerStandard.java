@@ -1,22 +1,161 @@
 package mbeans;
 
+import javax.management.openmbean.*;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class StockManagerStandard implements StockManagerStandardMBean {
+    // Types ouverts du snapshot : une ligne (produit, quantite) par produit, indexée par produit
+    public static final CompositeType TYPE_LIGNE;
+    public static final TabularType TYPE_SNAPSHOT;
+
+    static {
+        try {
+            TYPE_LIGNE = new CompositeType("StockProduit", "Stock d'un produit",
+                new String[]{"produit", "quantite"}, new String[]{"Produit", "Quantité en stock"},
+                new OpenType<?>[]{SimpleType.STRING, SimpleType.INTEGER});
+            TYPE_SNAPSHOT = new TabularType("StockSnapshot", "Stock de tous les produits", TYPE_LIGNE, new String[]{"produit"});
+        } catch (OpenDataException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final ConcurrentHashMap<String, Integer> stock = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final AtomicInteger sousSeuil = new AtomicInteger();
+    private volatile int seuilBas = 10;
+    // Mesure de latence facultative (voir MetriquesEntrepot)
+    private volatile MetriquesEntrepot metriques;
+
+    public void setMetriques(MetriquesEntrepot metriques) {
+        this.metriques = metriques;
+    }
 
     @Override
     public int getStock(String produit) {
-        return stock.getOrDefault(produit, 0);
+        MetriquesEntrepot m = metriques;
+        if (m == null) {
+            return stock.getOrDefault(produit, 0);
+        }
+        long debut = System.nanoTime();
+        int quantite = stock.getOrDefault(produit, 0);
+        m.enregistrerGetStock(System.nanoTime() - debut);
+        return quantite;
     }
 
     @Override
     public void addProduct(String produit, int quantite) {
-        stock.put(produit, quantite);
+        stock.compute(produit, (p, ancien) -> {
+            enregistrerVariation(ancien, quantite);
+            return quantite;
+        });
     }
 
     @Override
     public void replenishStock(String produit, int quantite) {
-        stock.merge(produit, quantite, Integer::sum);
+        long debut = System.nanoTime();
+        stock.compute(produit, (p, ancien) -> {
+            int nouveau = (ancien == null ? 0 : ancien) + quantite;
+            enregistrerVariation(ancien, nouveau);
+            return nouveau;
+        });
+        MetriquesEntrepot m = metriques;
+        if (m != null) {
+            m.enregistrerReplenish(System.nanoTime() - debut);
+        }
+    }
+
+    // Appelé sous le verrou du produit (compute) : total et nombre de produits sous le seuil restent exacts
+    private void enregistrerVariation(Integer ancien, int nouveau) {
+        int seuil = seuilBas;
+        total.add(nouveau - (ancien == null ? 0 : ancien));
+        boolean etaitSous = ancien != null && ancien < seuil;
+        if (etaitSous != nouveau < seuil) {
+            sousSeuil.addAndGet(etaitSous ? -1 : 1);
+        }
+    }
+
+    @Override
+    public int[] getStocks(String[] produits) {
+        int[] quantites = new int[produits.length];
+        for (int i = 0; i < produits.length; i++) {
+            quantites[i] = stock.getOrDefault(produits[i], 0);
+        }
+        return quantites;
+    }
+
+    @Override
+    public TabularData getSnapshot() {
+        TabularDataSupport snapshot = new TabularDataSupport(TYPE_SNAPSHOT, stock.size() * 4 / 3 + 1, 0.75f);
+        stock.forEach((produit, quantite) -> snapshot.put(ligne(produit, quantite)));
+        return snapshot;
+    }
+
+    // Les n produits les moins approvisionnés, du plus bas au plus haut (tas borné à n éléments)
+    @Override
+    public CompositeData[] getLowestStocks(int n) {
+        if (n <= 0) {
+            return new CompositeData[0];
+        }
+        PriorityQueue<Map.Entry<String, Integer>> plusBas =
+            new PriorityQueue<>(n + 1, Map.Entry.<String, Integer>comparingByValue().reversed());
+        for (Map.Entry<String, Integer> entree : stock.entrySet()) {
+            if (plusBas.size() < n) {
+                plusBas.add(Map.entry(entree.getKey(), entree.getValue()));
+            } else if (entree.getValue() < plusBas.peek().getValue()) {
+                plusBas.poll();
+                plusBas.add(Map.entry(entree.getKey(), entree.getValue()));
+            }
+        }
+        return plusBas.stream()
+            .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+            .map(e -> ligne(e.getKey(), e.getValue()))
+            .toArray(CompositeData[]::new);
+    }
+
+    @Override
+    public int getProductCount() {
+        return stock.size();
+    }
+
+    @Override
+    public long getTotalUnits() {
+        return total.sum();
+    }
+
+    @Override
+    public int getLowStockCount() {
+        return sousSeuil.get();
+    }
+
+    @Override
+    public int getLowStockThreshold() {
+        return seuilBas;
+    }
+
+    // Recompte complet : les mises à jour concurrentes au changement de seuil peuvent décaler le compteur
+    // jusqu'au prochain changement
+    @Override
+    public synchronized void setLowStockThreshold(int seuil) {
+        seuilBas = seuil;
+        int sous = 0;
+        for (int quantite : stock.values()) {
+            if (quantite < seuil) {
+                sous++;
+            }
+        }
+        sousSeuil.set(sous);
+    }
+
+    private static CompositeData ligne(String produit, int quantite) {
+        try {
+            return new CompositeDataSupport(TYPE_LIGNE, new String[]{"produit", "quantite"}, new Object[]{produit, quantite});
+        } catch (OpenDataException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,22 @@
 package mbeans;
 
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
 public interface StockManagerStandardMBean {
     int getStock(String produit);
     void addProduct(String produit, int quantite);
     void replenishStock(String produit, int quantite);
-}
\ No newline at end of file
+
+    // Opérations groupées : un seul aller-retour JMX pour tout un ensemble de produits
+    int[] getStocks(String[] produits);
+    TabularData getSnapshot();
+    CompositeData[] getLowestStocks(int n);
+
+    // Agrégats tenus à jour à chaque modification du stock
+    int getProductCount();
+    long getTotalUnits();
+    int getLowStockCount();
+    int getLowStockThreshold();
+    void setLowStockThreshold(int seuil);
+}
@@ -0,0 +1,220 @@
+package gestionnaire;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution parallèle des tâches selon leur graphe de dépendances.
+ *
+ * Une tâche attend les tâches nommées dans ses dependances, ainsi que la tâche précédente
+ * (par priorité) de son groupe. Dès que toutes ses prédécesseures sont terminées, elle est confiée
+ * au pool ; quand plusieurs tâches sont prêtes en même temps, la plus prioritaire part la première.
+ * Si une tâche échoue, les tâches qui en dépendent (directement ou non) sont annulées, les autres continuent.
+ */
+public class ExecuteurTaches {
+    public enum Statut { EXECUTEE, ECHOUEE, ANNULEE }
+
+    private final int nbThreads;
+
+    public ExecuteurTaches() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ExecuteurTaches(int nbThreads) {
+        this.nbThreads = nbThreads;
+    }
+
+    public RapportExecution executer(RegistreTaches registre) throws InterruptedException {
+        List<TacheEnregistree> taches = registre.getTaches();
+        List<List<Integer>> predecesseurs = predecesseurs(taches);
+        int[] ordre = ordreTopologique(taches, predecesseurs);
+
+        // File à priorité : execute() (et non submit()) garde les Lancement comparables
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(nbThreads, nbThreads, 0, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>());
+        try {
+            Execution execution = new Execution(taches, predecesseurs, pool);
+            return execution.lancer(ordre);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Dépendances déclarées, plus la tâche précédente du même groupe
+    private static List<List<Integer>> predecesseurs(List<TacheEnregistree> taches) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < taches.size(); i++) {
+            if (indices.put(taches.get(i).nom(), i) != null) {
+                throw new IllegalArgumentException("Nom de tâche en double : " + taches.get(i).nom());
+            }
+        }
+        List<List<Integer>> predecesseurs = new ArrayList<>();
+        Map<String, Integer> dernierDuGroupe = new HashMap<>();
+        for (int i = 0; i < taches.size(); i++) {
+            TacheEnregistree tache = taches.get(i);
+            Set<Integer> avant = new LinkedHashSet<>();
+            for (String dependance : tache.dependances()) {
+                Integer indice = indices.get(dependance);
+                if (indice == null) {
+                    throw new IllegalArgumentException("Dépendance inconnue pour " + tache.nom() + " : " + dependance);
+                }
+                avant.add(indice);
+            }
+            // Les tâches sont triées par priorité : la précédente du groupe est plus prioritaire
+            if (!tache.groupe().isEmpty()) {
+                Integer precedente = dernierDuGroupe.put(tache.groupe(), i);
+                if (precedente != null) {
+                    avant.add(precedente);
+                }
+            }
+            predecesseurs.add(List.copyOf(avant));
+        }
+        return predecesseurs;
+    }
+
+    // Algorithme de Kahn ; une tâche jamais libérée signale un cycle
+    private static int[] ordreTopologique(List<TacheEnregistree> taches, List<List<Integer>> predecesseurs) {
+        int n = taches.size();
+        int[] restants = new int[n];
+        List<List<Integer>> successeurs = successeurs(predecesseurs);
+        Deque<Integer> prets = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            restants[i] = predecesseurs.get(i).size();
+            if (restants[i] == 0) {
+                prets.add(i);
+            }
+        }
+        int[] ordre = new int[n];
+        int k = 0;
+        while (!prets.isEmpty()) {
+            int i = prets.poll();
+            ordre[k++] = i;
+            for (int suivant : successeurs.get(i)) {
+                if (--restants[suivant] == 0) {
+                    prets.add(suivant);
+                }
+            }
+        }
+        if (k < n) {
+            List<String> bloquees = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (restants[i] > 0) {
+                    bloquees.add(taches.get(i).nom());
+                }
+            }
+            throw new IllegalArgumentException("Cycle de dépendances entre : " + bloquees);
+        }
+        return ordre;
+    }
+
+    static List<List<Integer>> successeurs(List<List<Integer>> predecesseurs) {
+        List<List<Integer>> successeurs = new ArrayList<>();
+        for (int i = 0; i < predecesseurs.size(); i++) {
+            successeurs.add(new ArrayList<>());
+        }
+        for (int i = 0; i < predecesseurs.size(); i++) {
+            for (int avant : predecesseurs.get(i)) {
+                successeurs.get(avant).add(i);
+            }
+        }
+        return successeurs;
+    }
+
+    // État d'une exécution du graphe
+    private static final class Execution {
+        private final List<TacheEnregistree> taches;
+        private final List<List<Integer>> predecesseurs;
+        private final List<List<Integer>> successeurs;
+        private final Executor pool;
+        private final AtomicInteger[] restants;
+        private final boolean[] bloquees;
+        private final long[] debuts;
+        private final long[] fins;
+        private final String[] threads;
+        private final Statut[] statuts;
+        private final CountDownLatch terminees;
+        private long origine;
+
+        Execution(List<TacheEnregistree> taches, List<List<Integer>> predecesseurs, Executor pool) {
+            int n = taches.size();
+            this.taches = taches;
+            this.predecesseurs = predecesseurs;
+            this.successeurs = successeurs(predecesseurs);
+            this.pool = pool;
+            this.restants = new AtomicInteger[n];
+            this.bloquees = new boolean[n];
+            this.debuts = new long[n];
+            this.fins = new long[n];
+            this.threads = new String[n];
+            this.statuts = new Statut[n];
+            this.terminees = new CountDownLatch(n);
+            for (int i = 0; i < n; i++) {
+                restants[i] = new AtomicInteger(predecesseurs.get(i).size());
+            }
+        }
+
+        RapportExecution lancer(int[] ordre) throws InterruptedException {
+            origine = System.nanoTime();
+            for (int i = 0; i < taches.size(); i++) {
+                if (restants[i].get() == 0) {
+                    pool.execute(new Lancement(i));
+                }
+            }
+            terminees.await();
+            long duree = System.nanoTime() - origine;
+            return new RapportExecution(taches, predecesseurs, ordre, debuts, fins, threads, statuts, duree);
+        }
+
+        private final class Lancement implements Runnable, Comparable<Lancement> {
+            private final int indice;
+
+            Lancement(int indice) {
+                this.indice = indice;
+            }
+
+            @Override
+            public void run() {
+                TacheEnregistree tache = taches.get(indice);
+                threads[indice] = Thread.currentThread().getName();
+                debuts[indice] = System.nanoTime() - origine;
+                boolean succes = false;
+                try {
+                    tache.executer();
+                    succes = true;
+                } catch (Exception e) {
+                    System.err.println("Échec de la tâche " + tache.nom() + " : " + e);
+                } finally {
+                    // Même sur une Error, le graphe doit se terminer
+                    fins[indice] = System.nanoTime() - origine;
+                    terminer(indice, succes ? Statut.EXECUTEE : Statut.ECHOUEE);
+                }
+            }
+
+            @Override
+            public int compareTo(Lancement autre) {
+                int parPriorite = Integer.compare(taches.get(indice).priorite(), taches.get(autre.indice).priorite());
+                return parPriorite != 0 ? parPriorite : Integer.compare(indice, autre.indice);
+            }
+        }
+
+        // Libère les successeurs ; ceux d'une tâche échouée ou annulée sont annulés à leur tour
+        private void terminer(int indice, Statut statut) {
+            statuts[indice] = statut;
+            for (int suivant : successeurs.get(indice)) {
+                if (statut != Statut.EXECUTEE) {
+                    bloquees[suivant] = true;
+                }
+                // La décrémentation atomique publie bloquees[suivant] au thread qui libère la tâche
+                if (restants[suivant].decrementAndGet() == 0) {
+                    if (bloquees[suivant]) {
+                        terminer(suivant, Statut.ANNULEE);
+                    } else {
+                        pool.execute(new Lancement(suivant));
+                    }
+                }
+            }
+            terminees.countDown();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package gestionnaire;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Expression cron à cinq champs : "minute heure jour mois jourSemaine".
+ *
+ * Chaque champ accepte *, une valeur, un intervalle a-b, une liste a,b,c et un pas (*&#47;15, 8-18/2).
+ * Jour de semaine : 0 ou 7 = dimanche, 1 = lundi. Comme pour cron, si le jour du mois et le jour
+ * de semaine sont tous deux restreints, il suffit que l'un des deux corresponde.
+ *
+ * Passage à l'heure d'été : une échéance tombant dans l'heure sautée (02:30 à Paris, fin mars)
+ * n'existe pas ; comme cron, elle est déclenchée une fois, juste après le changement d'heure (03:00).
+ * Retour à l'heure d'hiver : l'heure répétée (02:00-02:59 à Paris, fin octobre) se produit deux fois.
+ * Comme cron, une expression à heure fixe ne se déclenche qu'au premier passage ; si son champ
+ * minute ou heure commence par *, elle se déclenche aux deux passages.
+ */
+public final class ExpressionCron {
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet heures;
+    private final BitSet jours;
+    private final BitSet mois;
+    private final BitSet joursSemaine;
+    private final boolean jourRestreint;
+    private final boolean jourSemaineRestreint;
+    // Minute ou heure génériques (*, */15) : déclenchée aussi pendant la seconde occurrence de l'heure répétée
+    private final boolean repeteeAuRecul;
+
+    private ExpressionCron(String expression, String[] champs) {
+        this.expression = expression;
+        this.minutes = champ(champs[0], 0, 59);
+        this.heures = champ(champs[1], 0, 23);
+        this.jours = champ(champs[2], 1, 31);
+        this.mois = champ(champs[3], 1, 12);
+        this.joursSemaine = champ(champs[4], 0, 7);
+        if (joursSemaine.get(7)) {
+            joursSemaine.set(0);
+        }
+        this.jourRestreint = !champs[2].equals("*");
+        this.jourSemaineRestreint = !champs[4].equals("*");
+        this.repeteeAuRecul = champs[0].startsWith("*") || champs[1].startsWith("*");
+    }
+
+    public static ExpressionCron analyser(String expression) {
+        String[] champs = expression.trim().split("\\s+");
+        if (champs.length != 5) {
+            throw new IllegalArgumentException("Expression cron à 5 champs attendue : \"" + expression + "\"");
+        }
+        return new ExpressionCron(expression, champs);
+    }
+
+    // Premier instant, à la minute près, strictement postérieur à apres ; le calcul avance par mois, jour,
+    // heure puis minute, ce qui reste rapide même pour une expression rarement satisfaite
+    public ZonedDateTime suivante(ZonedDateTime apres) {
+        ZonedDateTime t = apres.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ZonedDateTime limite = t.plusYears(5);
+        while (t.isBefore(limite)) {
+            ZonedDateTime suivant;
+            if (!mois.get(t.getMonthValue())) {
+                suivant = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!jourCorrespond(t.toLocalDateTime())) {
+                suivant = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!heures.get(t.getHour())) {
+                suivant = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(t.getMinute())) {
+                suivant = t.plusMinutes(1);
+            } else if (!repeteeAuRecul && !t.isEqual(t.withEarlierOffsetAtOverlap())) {
+                // Seconde occurrence de cette heure locale : déjà servie avant le changement d'heure
+                suivant = t.plusMinutes(1);
+            } else {
+                return t;
+            }
+            if (echeanceSautee(t, suivant)) {
+                return suivant;
+            }
+            t = suivant;
+        }
+        throw new IllegalStateException("Expression cron jamais satisfaite : \"" + expression + "\"");
+    }
+
+    // Heures locales sautées entre avant et apres (passage à l'heure d'été) : l'horloge locale avance
+    // plus que le temps écoulé. L'une d'elles aurait-elle été une échéance ?
+    private boolean echeanceSautee(ZonedDateTime avant, ZonedDateTime apres) {
+        LocalDateTime fin = apres.toLocalDateTime();
+        for (LocalDateTime m = avant.toLocalDateTime().plus(Duration.between(avant, apres)); m.isBefore(fin); m = m.plusMinutes(1)) {
+            if (mois.get(m.getMonthValue()) && jourCorrespond(m) && heures.get(m.getHour()) && minutes.get(m.getMinute())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean jourCorrespond(LocalDateTime t) {
+        boolean jour = jours.get(t.getDayOfMonth());
+        boolean jourSemaine = joursSemaine.get(t.getDayOfWeek().getValue() % 7);
+        if (jourRestreint && jourSemaineRestreint) {
+            return jour || jourSemaine;
+        }
+        return jour && jourSemaine;
+    }
+
+    private static BitSet champ(String champ, int min, int max) {
+        BitSet valeurs = new BitSet(max + 1);
+        for (String element : champ.split(",")) {
+            int pas = 1;
+            int barre = element.indexOf('/');
+            if (barre >= 0) {
+                pas = nombre(element.substring(barre + 1), 1, max, champ);
+                element = element.substring(0, barre);
+            }
+            int debut;
+            int fin;
+            if (element.equals("*")) {
+                debut = min;
+                fin = max;
+            } else if (element.contains("-")) {
+                String[] bornes = element.split("-", 2);
+                debut = nombre(bornes[0], min, max, champ);
+                fin = nombre(bornes[1], min, max, champ);
+            } else {
+                debut = nombre(element, min, max, champ);
+                fin = barre >= 0 ? max : debut;
+            }
+            if (debut > fin) {
+                throw new IllegalArgumentException("Intervalle inversé dans le champ cron \"" + champ + "\"");
+            }
+            for (int v = debut; v <= fin; v += pas) {
+                valeurs.set(v);
+            }
+        }
+        return valeurs;
+    }
+
+    private static int nombre(String texte, int min, int max, String champ) {
+        try {
+            int v = Integer.parseInt(texte);
+            if (v >= min && v <= max) {
+                return v;
+            }
+        } catch (NumberFormatException e) {
+            // message commun ci-dessous
+        }
+        throw new IllegalArgumentException("Valeur invalide \"" + texte + "\" dans le champ cron \"" + champ
+            + "\" (" + min + "-" + max + ")");
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
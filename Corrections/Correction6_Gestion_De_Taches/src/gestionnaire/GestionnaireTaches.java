@@ -1,37 +1,53 @@
 package gestionnaire;
 
-import modele.Tache;
 import modele.TachesSysteme;
 
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
 
 public class GestionnaireTaches {
+    // Analyse faite une seule fois, à la construction (voir RegistreTaches)
+    private final RegistreTaches registre;
 
-    public void executerTaches() {
-        TachesSysteme tachesSysteme = new TachesSysteme();
-        List<Method> taches = new ArrayList<>();
-        Method[] methods = TachesSysteme.class.getDeclaredMethods();
+    public GestionnaireTaches() {
+        this(RegistreTaches.scanner(new TachesSysteme()));
+    }
+
+    public GestionnaireTaches(RegistreTaches registre) {
+        this.registre = registre;
+    }
 
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(Tache.class)) {
-                taches.add(method);
+    public void executerTaches() {
+        for (TacheEnregistree tache : registre.getTaches()) {
+            try {
+                System.out.println("Exécution de la tâche : " + tache.description());
+                tache.executer();
+            } catch (Exception e) {
+                e.printStackTrace();
             }
         }
+    }
 
-        taches.sort((m1, m2) -> Integer.compare(
-            m1.getAnnotation(Tache.class).priorite(),
-            m2.getAnnotation(Tache.class).priorite()
-        ));
+    // Tâches indépendantes en parallèle, dans le respect des dépendances et des groupes (voir ExecuteurTaches)
+    public RapportExecution executerEnParallele() throws InterruptedException {
+        return new ExecuteurTaches().executer(registre);
+    }
 
-        for (Method tache : taches) {
+    // Tâches périodiques (periodeMillis ou cron), jusqu'à la fermeture du planificateur renvoyé
+    public PlanificateurTaches planifier(MBeanServer serveur) throws JMException {
+        PlanificateurTaches planificateur = new PlanificateurTaches();
+        try {
+            planificateur.exposer(serveur);
+            planificateur.planifier(registre);
+        } catch (JMException | RuntimeException e) {
+            // Pas de pool ni de MBean laissés derrière un planificateur jamais rendu
             try {
-                System.out.println("Exécution de la tâche : " + tache.getAnnotation(Tache.class).description());
-                tache.invoke(tachesSysteme);
-            } catch (Exception e) {
-                e.printStackTrace();
+                planificateur.close();
+            } catch (JMException fermeture) {
+                e.addSuppressed(fermeture);
             }
+            throw e;
         }
+        return planificateur;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package gestionnaire;
+
+import java.util.List;
+
+// Index des tâches généré à la compilation (voir processeur.ProcesseurTaches)
+public interface IndexTaches {
+    // Tâches de l'instance, déjà liées ; null si sa classe n'est pas indexée
+    List<TacheEnregistree> taches(Object instance);
+}
@@ -0,0 +1,285 @@
+package gestionnaire;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution périodique des tâches planifiées (periodeMillis ou cron de @Tache).
+ *
+ * Un seul thread d'horloge (ScheduledThreadPoolExecutor, un tas trié par échéance) déclenche toutes
+ * les tâches : il ne fait que confier l'exécution au pool, ce qui lui permet de suivre des milliers
+ * de tâches. Les départs des tâches à période fixe sont étalés sur leur première période.
+ *
+ * Une tâche encore en cours à son déclenchement suivant n'est pas relancée : ce déclenchement est
+ * sauté (pas de rattrapage). Au-delà de delaiMaxMillis, l'exécution est interrompue ; une tâche qui
+ * ignore l'interruption continue, et ses déclenchements restent sautés jusqu'à ce qu'elle se termine.
+ * Les dépendances et groupes ne concernent que l'exécution du graphe (voir ExecuteurTaches).
+ */
+public class PlanificateurTaches implements AutoCloseable {
+    private final ScheduledThreadPoolExecutor horloge;
+    private final ExecutorService pool;
+    private final Map<String, Planifiee> planifiees = new ConcurrentHashMap<>();
+    // Écart entre l'échéance prévue et le déclenchement effectif
+    private final HistogrammeLatence retards = new HistogrammeLatence();
+    private volatile MBeanServer serveur;
+
+    public PlanificateurTaches() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PlanificateurTaches(int nbThreads) {
+        horloge = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "planificateur-horloge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Les expirations annulées (cas normal : la tâche a fini à temps) quittent aussitôt la file
+        horloge.setRemoveOnCancelPolicy(true);
+        AtomicInteger numero = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(nbThreads, runnable -> {
+            Thread thread = new Thread(runnable, "planificateur-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Planifie les tâches périodiques du registre ; renvoie leur nombre. Toutes les tâches sont
+    // validées (expression cron, nom) avant d'en démarrer une : une erreur n'en laisse aucune planifiée
+    public int planifier(RegistreTaches registre) throws JMException {
+        List<Planifiee> aDemarrer = new ArrayList<>();
+        Set<String> noms = new HashSet<>();
+        for (TacheEnregistree tache : registre.getTaches()) {
+            if (tache.planification().estPeriodique()) {
+                if (!noms.add(tache.nom())) {
+                    throw new IllegalArgumentException("Nom de tâche en double : " + tache.nom());
+                }
+                aDemarrer.add(preparer(tache));
+            }
+        }
+        for (Planifiee planifiee : aDemarrer) {
+            demarrer(planifiee);
+        }
+        return aDemarrer.size();
+    }
+
+    public StatistiquesTache planifier(TacheEnregistree tache) throws JMException {
+        Planifiee planifiee = preparer(tache);
+        demarrer(planifiee);
+        return planifiee.statistiques;
+    }
+
+    // Validation seule, sans effet sur le planificateur
+    private Planifiee preparer(TacheEnregistree tache) {
+        Planification planification = tache.planification();
+        if (!planification.estPeriodique()) {
+            throw new IllegalArgumentException("Tâche non planifiée : " + tache.nom());
+        }
+        if (planifiees.containsKey(tache.nom())) {
+            throw new IllegalArgumentException("Nom de tâche en double : " + tache.nom());
+        }
+        ExpressionCron cron = planification.periodeMillis() > 0 ? null : ExpressionCron.analyser(planification.cron());
+        if (cron != null) {
+            // Une expression valide mais jamais satisfaite ("0 0 31 2 *") échouerait plus tard, sur le
+            // thread d'horloge et sans bruit : on calcule la première échéance dès maintenant
+            try {
+                cron.suivante(ZonedDateTime.now());
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("Tâche " + tache.nom() + " : " + e.getMessage(), e);
+            }
+        }
+        return new Planifiee(tache, cron);
+    }
+
+    private void demarrer(Planifiee planifiee) throws JMException {
+        String nom = planifiee.tache.nom();
+        if (planifiees.putIfAbsent(nom, planifiee) != null) {
+            throw new IllegalArgumentException("Nom de tâche en double : " + nom);
+        }
+        MBeanServer s = serveur;
+        if (s != null) {
+            try {
+                s.registerMBean(planifiee.statistiques, nomMBean(nom));
+            } catch (JMException e) {
+                planifiees.remove(nom, planifiee);
+                throw e;
+            }
+        }
+        planifiee.demarrer();
+    }
+
+    // Enregistre un MBean taches:type=Tache,nom=... par tâche, y compris pour les tâches planifiées ensuite
+    public void exposer(MBeanServer serveur) throws JMException {
+        this.serveur = serveur;
+        for (Planifiee planifiee : planifiees.values()) {
+            ObjectName nom = nomMBean(planifiee.tache.nom());
+            if (!serveur.isRegistered(nom)) {
+                serveur.registerMBean(planifiee.statistiques, nom);
+            }
+        }
+    }
+
+    private static ObjectName nomMBean(String tache) throws JMException {
+        return new ObjectName("taches:type=Tache,nom=" + tache);
+    }
+
+    public Collection<StatistiquesTache> getStatistiques() {
+        List<StatistiquesTache> statistiques = new ArrayList<>();
+        for (Planifiee planifiee : planifiees.values()) {
+            statistiques.add(planifiee.statistiques);
+        }
+        return statistiques;
+    }
+
+    public HistogrammeLatence getRetards() {
+        return retards;
+    }
+
+    @Override
+    public void close() throws JMException {
+        horloge.shutdownNow();
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // On ferme quand même ; l'appelant retrouvera l'interruption
+            Thread.currentThread().interrupt();
+        }
+        MBeanServer s = serveur;
+        if (s != null) {
+            for (String nom : planifiees.keySet()) {
+                if (s.isRegistered(nomMBean(nom))) {
+                    s.unregisterMBean(nomMBean(nom));
+                }
+            }
+        }
+    }
+
+    // Une tâche planifiée ; ses champs d'échéance ne sont lus et écrits que par le thread d'horloge
+    private final class Planifiee {
+        private final TacheEnregistree tache;
+        private final ExpressionCron cron;
+        private final StatistiquesTache statistiques;
+        private final AtomicBoolean enCours = new AtomicBoolean();
+        private long echeance;
+        private ZonedDateTime echeanceCron;
+
+        Planifiee(TacheEnregistree tache, ExpressionCron cron) {
+            this.tache = tache;
+            this.cron = cron;
+            this.statistiques = new StatistiquesTache(tache);
+        }
+
+        void demarrer() {
+            long periode = tache.planification().periodeMillis();
+            if (cron == null) {
+                long decalage = ThreadLocalRandom.current().nextLong(periode);
+                echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(decalage);
+                horloge.scheduleAtFixedRate(() -> {
+                    declencher();
+                    echeance += TimeUnit.MILLISECONDS.toNanos(periode);
+                }, decalage, periode, TimeUnit.MILLISECONDS);
+            } else {
+                horloge.execute(() -> {
+                    echeanceCron = ZonedDateTime.now();
+                    planifierCron();
+                });
+            }
+        }
+
+        // Un seul déclenchement en attente à la fois : le suivant est calculé après chaque déclenchement
+        private void planifierCron() {
+            ZonedDateTime maintenant = ZonedDateTime.now();
+            echeanceCron = cron.suivante(maintenant.isAfter(echeanceCron) ? maintenant : echeanceCron);
+            long delai = Duration.between(maintenant, echeanceCron).toNanos();
+            echeance = System.nanoTime() + delai;
+            horloge.schedule(() -> {
+                declencher();
+                planifierCron();
+            }, delai, TimeUnit.NANOSECONDS);
+        }
+
+        private void declencher() {
+            retards.enregistrer(System.nanoTime() - echeance);
+            if (!enCours.compareAndSet(false, true)) {
+                statistiques.sautee();
+                return;
+            }
+            Execution execution = new Execution();
+            long delaiMax = tache.planification().delaiMaxMillis();
+            if (delaiMax > 0) {
+                execution.expiration = horloge.schedule(execution::expirer, delaiMax, TimeUnit.MILLISECONDS);
+            }
+            try {
+                pool.execute(execution);
+            } catch (RejectedExecutionException e) {
+                // Planificateur en cours d'arrêt
+                enCours.set(false);
+            }
+        }
+
+        private final class Execution implements Runnable {
+            private static final int EN_ATTENTE = 0, EN_COURS = 1, TERMINEE = 2;
+
+            private int etat = EN_ATTENTE;
+            private Thread thread;
+            private ScheduledFuture<?> expiration;
+
+            @Override
+            public void run() {
+                synchronized (this) {
+                    if (etat != EN_ATTENTE) {
+                        return;
+                    }
+                    etat = EN_COURS;
+                    thread = Thread.currentThread();
+                }
+                long debut = System.nanoTime();
+                boolean succes = false;
+                try {
+                    tache.executer();
+                    succes = true;
+                } catch (Exception e) {
+                    System.err.println("Échec de la tâche planifiée " + tache.nom() + " : " + e);
+                } finally {
+                    statistiques.executee(System.nanoTime() - debut, succes);
+                    synchronized (this) {
+                        etat = TERMINEE;
+                        // Une interruption arrivée juste avant la fin ne doit pas toucher la tâche suivante du thread
+                        Thread.interrupted();
+                    }
+                    if (expiration != null) {
+                        expiration.cancel(false);
+                    }
+                    enCours.set(false);
+                }
+            }
+
+            // Sur le thread d'horloge, une fois delaiMaxMillis écoulé
+            synchronized void expirer() {
+                if (etat == TERMINEE) {
+                    return;
+                }
+                statistiques.expiree();
+                if (etat == EN_ATTENTE) {
+                    // Jamais démarrée (pool saturé) : abandonnée, le prochain déclenchement pourra partir
+                    etat = TERMINEE;
+                    enCours.set(false);
+                } else {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+}
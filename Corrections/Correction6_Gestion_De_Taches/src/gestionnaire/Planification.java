@@ -0,0 +1,17 @@
+package gestionnaire;
+
+// Attributs de planification d'une tâche, repris de @Tache
+public record Planification(long periodeMillis, String cron, long delaiMaxMillis) {
+    public static final Planification AUCUNE = new Planification(0, "", 0);
+
+    public boolean estPeriodique() {
+        return periodeMillis > 0 || !cron.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        String declenchement = periodeMillis > 0 ? "toutes les " + periodeMillis + " ms"
+            : cron.isEmpty() ? "à la demande" : "cron \"" + cron + "\"";
+        return delaiMaxMillis > 0 ? declenchement + ", " + delaiMaxMillis + " ms max" : declenchement;
+    }
+}
@@ -0,0 +1,100 @@
+package gestionnaire;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bilan d'une exécution parallèle : début, durée, thread et statut de chaque tâche,
+ * et chemin critique (la plus longue chaîne de dépendances, en temps), qui borne la durée totale
+ * quel que soit le nombre de threads.
+ */
+public class RapportExecution {
+    private final List<TacheEnregistree> taches;
+    private final long[] debuts;
+    private final long[] fins;
+    private final String[] threads;
+    private final ExecuteurTaches.Statut[] statuts;
+    private final long dureeTotale;
+    private final List<Integer> cheminCritique;
+    private final long dureeCheminCritique;
+
+    RapportExecution(List<TacheEnregistree> taches, List<List<Integer>> predecesseurs, int[] ordre, long[] debuts,
+                     long[] fins, String[] threads, ExecuteurTaches.Statut[] statuts, long dureeTotale) {
+        this.taches = taches;
+        this.debuts = debuts;
+        this.fins = fins;
+        this.threads = threads;
+        this.statuts = statuts;
+        this.dureeTotale = dureeTotale;
+
+        // Plus long chemin pondéré par la durée des tâches, dans l'ordre topologique
+        int n = taches.size();
+        long[] cumul = new long[n];
+        int[] precedent = new int[n];
+        int fin = -1;
+        for (int i : ordre) {
+            precedent[i] = -1;
+            for (int avant : predecesseurs.get(i)) {
+                if (cumul[avant] > (precedent[i] < 0 ? -1 : cumul[precedent[i]])) {
+                    precedent[i] = avant;
+                }
+            }
+            cumul[i] = duree(i) + (precedent[i] < 0 ? 0 : cumul[precedent[i]]);
+            if (fin < 0 || cumul[i] > cumul[fin]) {
+                fin = i;
+            }
+        }
+        List<Integer> chemin = new ArrayList<>();
+        for (int i = fin; i >= 0; i = precedent[i]) {
+            chemin.add(i);
+        }
+        Collections.reverse(chemin);
+        this.cheminCritique = chemin;
+        this.dureeCheminCritique = fin < 0 ? 0 : cumul[fin];
+    }
+
+    // Durée d'une tâche en nanosecondes (0 si annulée)
+    public long duree(int indice) {
+        return statuts[indice] == ExecuteurTaches.Statut.ANNULEE ? 0 : fins[indice] - debuts[indice];
+    }
+
+    public long getDureeTotale() {
+        return dureeTotale;
+    }
+
+    public long getDureeCheminCritique() {
+        return dureeCheminCritique;
+    }
+
+    public List<String> getCheminCritique() {
+        return cheminCritique.stream().map(i -> taches.get(i).nom()).toList();
+    }
+
+    public ExecuteurTaches.Statut getStatut(String nom) {
+        for (int i = 0; i < taches.size(); i++) {
+            if (taches.get(i).nom().equals(nom)) {
+                return statuts[i];
+            }
+        }
+        throw new IllegalArgumentException("Tâche inconnue : " + nom);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Bilan de l'exécution :");
+        long somme = 0;
+        for (int i = 0; i < taches.size(); i++) {
+            somme += duree(i);
+            if (statuts[i] == ExecuteurTaches.Statut.ANNULEE) {
+                sb.append(String.format("%n  %-28s %s", taches.get(i).nom(), statuts[i]));
+            } else {
+                sb.append(String.format("%n  %-28s %s, début %8.3f ms, durée %8.3f ms (%s)", taches.get(i).nom(),
+                    statuts[i], debuts[i] / 1e6, duree(i) / 1e6, threads[i]));
+            }
+        }
+        sb.append(String.format("%nDurée totale %.3f ms, somme des tâches %.3f ms, chemin critique %.3f ms : %s",
+            dureeTotale / 1e6, somme / 1e6, dureeCheminCritique / 1e6, String.join(" → ", getCheminCritique())));
+        return sb.toString();
+    }
+}
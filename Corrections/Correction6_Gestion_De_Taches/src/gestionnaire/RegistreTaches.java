@@ -0,0 +1,121 @@
+package gestionnaire;
+
+import modele.Tache;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registre des tâches : les classes annotées sont analysées une seule fois (réflexion et lecture
+ * des annotations), puis chaque tâche est liée à un Runnable généré par LambdaMetafactory.
+ * L'exécution ne fait plus ensuite qu'un appel d'interface, presque aussi rapide qu'un appel direct.
+ * Si la génération échoue, la tâche passe par un MethodHandle lié à son instance.
+ *
+ * Quand le projet est compilé avec processeur.ProcesseurTaches, l'index généré (IndexTachesGenere)
+ * fournit directement les tâches des classes qu'il connaît : ni réflexion ni lecture d'annotation.
+ */
+public class RegistreTaches {
+    private static final MethodType RUNNABLE = MethodType.methodType(void.class);
+    private static final IndexTaches INDEX = chargerIndex();
+
+    private final List<TacheEnregistree> taches;
+    private final int tachesIndexees;
+
+    private RegistreTaches(List<TacheEnregistree> taches, int tachesIndexees) {
+        this.taches = List.copyOf(taches);
+        this.tachesIndexees = tachesIndexees;
+    }
+
+    // Analyse les méthodes @Tache des instances fournies ; les tâches sont triées par priorité
+    public static RegistreTaches scanner(Object... instances) {
+        List<TacheEnregistree> taches = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        int tachesIndexees = 0;
+        for (Object instance : instances) {
+            List<TacheEnregistree> indexees = INDEX == null ? null : INDEX.taches(instance);
+            if (indexees != null) {
+                taches.addAll(indexees);
+                tachesIndexees += indexees.size();
+                continue;
+            }
+            for (Method method : instance.getClass().getDeclaredMethods()) {
+                Tache tache = method.getAnnotation(Tache.class);
+                if (tache == null) {
+                    continue;
+                }
+                if (method.getParameterCount() != 0) {
+                    throw new IllegalArgumentException("Une tâche ne prend pas de paramètre : " + method);
+                }
+                taches.add(new TacheEnregistree(method.getName(), tache.priorite(), tache.description(),
+                    List.of(tache.dependances()), tache.groupe(), planification(tache), lier(lookup, method, instance)));
+            }
+        }
+        taches.sort(Comparator.comparingInt(TacheEnregistree::priorite));
+        return new RegistreTaches(taches, tachesIndexees);
+    }
+
+    private static Planification planification(Tache tache) {
+        if (tache.periodeMillis() == 0 && tache.cron().isEmpty() && tache.delaiMaxMillis() == 0) {
+            return Planification.AUCUNE;
+        }
+        return new Planification(tache.periodeMillis(), tache.cron(), tache.delaiMaxMillis());
+    }
+
+    // Index généré à la compilation, ou null si le processeur n'a pas été utilisé
+    private static IndexTaches chargerIndex() {
+        try {
+            return (IndexTaches) Class.forName("gestionnaire.IndexTachesGenere").getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Index des tâches inutilisable", e);
+        }
+    }
+
+    public static boolean indexDisponible() {
+        return INDEX != null;
+    }
+
+    // Nombre de tâches fournies par l'index plutôt que découvertes par réflexion
+    public int getTachesIndexees() {
+        return tachesIndexees;
+    }
+
+    static Runnable lier(MethodHandles.Lookup lookup, Method method, Object instance) {
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+            boolean statique = Modifier.isStatic(method.getModifiers());
+            try {
+                // Runnable généré : run() appelle directement la méthode sur l'instance capturée
+                MethodType capture = statique
+                    ? MethodType.methodType(Runnable.class)
+                    : MethodType.methodType(Runnable.class, method.getDeclaringClass());
+                CallSite site = LambdaMetafactory.metafactory(lookup, "run", capture, RUNNABLE, handle,
+                    MethodType.methodType(method.getReturnType()));
+                return statique ? (Runnable) site.getTarget().invoke() : (Runnable) site.getTarget().invoke(instance);
+            } catch (Throwable e) {
+                // Repli : MethodHandle lié à l'instance, retour ignoré
+                MethodHandle lie = (statique ? handle : handle.bindTo(instance)).asType(RUNNABLE);
+                return () -> {
+                    try {
+                        lie.invokeExact();
+                    } catch (RuntimeException | Error erreur) {
+                        throw erreur;
+                    } catch (Throwable erreur) {
+                        throw new IllegalStateException("Échec de la tâche " + method.getName(), erreur);
+                    }
+                };
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Tâche inaccessible : " + method, e);
+        }
+    }
+
+    public List<TacheEnregistree> getTaches() {
+        return taches;
+    }
+}
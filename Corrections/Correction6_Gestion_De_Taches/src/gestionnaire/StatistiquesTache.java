@@ -0,0 +1,95 @@
+package gestionnaire;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Compteurs et histogramme des durées d'une tâche planifiée, exposés en JMX (voir PlanificateurTaches)
+public class StatistiquesTache implements StatistiquesTacheMBean {
+    private final TacheEnregistree tache;
+    private final HistogrammeLatence durees = new HistogrammeLatence();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder sautees = new LongAdder();
+    private final LongAdder expirees = new LongAdder();
+
+    public StatistiquesTache(TacheEnregistree tache) {
+        this.tache = tache;
+    }
+
+    void executee(long nanos, boolean succes) {
+        durees.enregistrer(nanos);
+        if (!succes) {
+            echecs.increment();
+        }
+    }
+
+    void sautee() {
+        sautees.increment();
+    }
+
+    void expiree() {
+        expirees.increment();
+    }
+
+    @Override
+    public String getNom() {
+        return tache.nom();
+    }
+
+    @Override
+    public String getPlanification() {
+        return tache.planification().toString();
+    }
+
+    @Override
+    public long getExecutions() {
+        return durees.getNombre();
+    }
+
+    @Override
+    public long getEchecs() {
+        return echecs.sum();
+    }
+
+    @Override
+    public long getSautees() {
+        return sautees.sum();
+    }
+
+    @Override
+    public long getExpirees() {
+        return expirees.sum();
+    }
+
+    @Override
+    public double getMoyenneMillis() {
+        return durees.getMoyenneMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return durees.percentileNanos(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return durees.percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return durees.getMaxMillis();
+    }
+
+    @Override
+    public void reinitialiser() {
+        durees.reinitialiser();
+        echecs.reset();
+        sautees.reset();
+        expirees.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-28s %s, %d sautée(s), %d expirée(s), %d échec(s)", tache.nom(), durees,
+            getSautees(), getExpirees(), getEchecs());
+    }
+}
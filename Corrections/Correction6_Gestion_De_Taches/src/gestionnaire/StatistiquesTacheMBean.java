@@ -0,0 +1,22 @@
+package gestionnaire;
+
+public interface StatistiquesTacheMBean {
+    String getNom();
+    String getPlanification();
+
+    // Compteurs depuis l'enregistrement de la tâche (ou le dernier reinitialiser)
+    long getExecutions();
+    long getEchecs();
+    // Déclenchements ignorés parce que l'exécution précédente n'était pas terminée
+    long getSautees();
+    // Exécutions interrompues pour avoir dépassé delaiMaxMillis
+    long getExpirees();
+
+    // Durées d'exécution, en millisecondes
+    double getMoyenneMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getMaxMillis();
+
+    void reinitialiser();
+}
@@ -0,0 +1,12 @@
+package gestionnaire;
+
+import java.util.List;
+
+// Tâche découverte une fois pour toutes : métadonnées de @Tache et appel déjà lié à son instance
+public record TacheEnregistree(String nom, int priorite, String description, List<String> dependances,
+                               String groupe, Planification planification, Runnable action) {
+
+    public void executer() {
+        action.run();
+    }
+}
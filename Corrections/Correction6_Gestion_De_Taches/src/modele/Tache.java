@@ -7,4 +7,18 @@ import java.lang.annotation.RetentionPolicy;
 public @interface Tache {
     int priorite();
     String description();
-}
\ No newline at end of file
+
+    // Noms des méthodes @Tache à terminer avant celle-ci
+    String[] dependances() default {};
+
+    // Les tâches d'un même groupe s'exécutent l'une après l'autre, par priorité ("" = aucun groupe)
+    String groupe() default "";
+
+    // Planification (voir gestionnaire.PlanificateurTaches) : exécution toutes les periodeMillis
+    // ms, ou selon une expression cron "minute heure jour mois jourSemaine" ; 0 et "" = tâche non périodique
+    long periodeMillis() default 0;
+    String cron() default "";
+
+    // Durée maximale d'une exécution planifiée, interrompue au-delà (0 = sans limite)
+    long delaiMaxMillis() default 0;
+}
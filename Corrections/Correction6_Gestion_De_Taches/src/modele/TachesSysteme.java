@@ -7,13 +7,17 @@ public class TachesSysteme {
         System.out.println("Réinitialisation de la base de données...");
     }
 
-    @Tache(priorite = 2, description = "Nettoyage du cache système.")
+    // Le cache est nettoyé après la réinitialisation de la base, comme dans l'ordre des priorités
+    @Tache(priorite = 2, description = "Nettoyage du cache système.", periodeMillis = 1000,
+           dependances = {"reinitialiserBaseDeDonnees"})
     public void nettoyerCache() {
         System.out.println("Nettoyage du cache système...");
     }
 
-    @Tache(priorite = 3, description = "Envoi du rapport quotidien.")
+    @Tache(priorite = 3, description = "Envoi du rapport quotidien.",
+           dependances = {"reinitialiserBaseDeDonnees", "nettoyerCache"},
+           cron = "0 8 * * 1-5", delaiMaxMillis = 30_000)
     public void envoyerRapport() {
         System.out.println("Envoi du rapport quotidien...");
     }
-}
\ No newline at end of file
+}
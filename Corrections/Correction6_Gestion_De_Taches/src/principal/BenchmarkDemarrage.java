@@ -0,0 +1,109 @@
+package principal;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Temps de découverte des tâches au démarrage pour un grand nombre de classes, avec et sans
+ * l'index généré par processeur.ProcesseurTaches.
+ *
+ * Le benchmark écrit N classes de M tâches, les compile deux fois (sans processeur, puis avec),
+ * puis mesure RegistreTaches.scanner() dans un chargeur de classes neuf à chaque essai, comme
+ * au lancement d'une application. À lancer avec, sur le classpath, le projet compilé (processeur inclus).
+ * Usage : BenchmarkDemarrage [classes] [tâches par classe] [essais]
+ */
+public class BenchmarkDemarrage {
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int tachesParClasse = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int essais = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Path racine = Files.createTempDirectory("bench-demarrage");
+        try {
+            List<String> sources = ecrireSources(racine.resolve("src"), classes, tachesParClasse);
+            String classpath = System.getProperty("java.class.path");
+
+            Path sansIndex = racine.resolve("sans-index");
+            compiler(sources, sansIndex, "-proc:none", "-cp", classpath);
+            Path avecIndex = racine.resolve("avec-index");
+            compiler(sources, avecIndex, "-cp", classpath, "-processorpath", classpath,
+                "-processor", "processeur.ProcesseurTaches");
+
+            System.out.printf("%d classes x %d tâches%n", classes, tachesParClasse);
+            for (int essai = 1; essai <= essais; essai++) {
+                System.out.printf("Essai %d : réflexion %s | index %s%n", essai,
+                    mesurer(sansIndex, classpath, classes), mesurer(avecIndex, classpath, classes));
+            }
+        } finally {
+            try (Stream<Path> fichiers = Files.walk(racine)) {
+                fichiers.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    private static List<String> ecrireSources(Path repertoire, int classes, int tachesParClasse) throws IOException {
+        Path paquet = Files.createDirectories(repertoire.resolve("genere"));
+        List<String> fichiers = new ArrayList<>();
+        for (int c = 0; c < classes; c++) {
+            StringBuilder source = new StringBuilder("package genere;\n\nimport modele.Tache;\n\npublic class Taches")
+                .append(c).append(" {\n    public static long compteur;\n");
+            for (int t = 0; t < tachesParClasse; t++) {
+                source.append("\n    @Tache(priorite = ").append(t).append(", description = \"Tâche ").append(t)
+                    .append(" de la classe ").append(c).append("\"")
+                    .append(t > 0 ? ", dependances = \"tache" + (t - 1) + "\"" : "")
+                    .append(")\n    public void tache").append(t).append("() {\n        compteur++;\n    }\n");
+            }
+            source.append("}\n");
+            Path fichier = paquet.resolve("Taches" + c + ".java");
+            Files.writeString(fichier, source);
+            fichiers.add(fichier.toString());
+        }
+        return fichiers;
+    }
+
+    private static void compiler(List<String> sources, Path sortie, String... options) throws IOException {
+        Files.createDirectories(sortie);
+        JavaCompiler compilateur = ToolProvider.getSystemJavaCompiler();
+        List<String> arguments = new ArrayList<>(List.of("-encoding", "UTF-8", "-d", sortie.toString()));
+        arguments.addAll(List.of(options));
+        arguments.addAll(sources);
+        if (compilateur.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Échec de la compilation des tâches générées");
+        }
+    }
+
+    // Chargement des classes puis découverte des tâches, dans un chargeur neuf ; les classes compilées
+    // passent avant le projet pour que leur index remplace celui de l'application
+    private static String mesurer(Path compilees, String classpath, int classes) throws Exception {
+        List<URL> urls = new ArrayList<>();
+        urls.add(compilees.toUri().toURL());
+        for (String entree : classpath.split(File.pathSeparator)) {
+            urls.add(Path.of(entree).toUri().toURL());
+        }
+        try (URLClassLoader chargeur = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getPlatformClassLoader())) {
+            long debut = System.nanoTime();
+            Object[] instances = new Object[classes];
+            for (int c = 0; c < classes; c++) {
+                instances[c] = chargeur.loadClass("genere.Taches" + c).getDeclaredConstructor().newInstance();
+            }
+            long charge = System.nanoTime();
+            Class<?> registre = chargeur.loadClass("gestionnaire.RegistreTaches");
+            Object resultat = registre.getMethod("scanner", Object[].class).invoke(null, (Object) instances);
+            long fin = System.nanoTime();
+            int taches = ((List<?>) registre.getMethod("getTaches").invoke(resultat)).size();
+            int indexees = (Integer) registre.getMethod("getTachesIndexees").invoke(resultat);
+            return String.format("chargement %6.1f ms + découverte %6.1f ms (%d tâches, %d par l'index)",
+                (charge - debut) / 1e6, (fin - charge) / 1e6, taches, indexees);
+        }
+    }
+}
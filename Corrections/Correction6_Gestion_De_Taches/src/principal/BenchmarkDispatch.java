@@ -0,0 +1,115 @@
+package principal;
+
+import gestionnaire.RegistreTaches;
+import gestionnaire.TacheEnregistree;
+import modele.Tache;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coût de lancement d'une série de tâches selon le mode d'appel : chemin réflexif d'origine
+ * (analyse, tri et Method.invoke à chaque exécution), Method.invoke sur des méthodes en cache,
+ * MethodHandle, Runnable du RegistreTaches, et appel direct comme référence.
+ * Benchmark à base de main (pas de JMH dans ce projet) : préchauffage puis plusieurs mesures.
+ * Usage : BenchmarkDispatch [exécutions]
+ */
+public class BenchmarkDispatch {
+    // Tâches sans affichage : seul le coût de l'appel est mesuré
+    public static class TachesMuettes {
+        long compteur;
+
+        @Tache(priorite = 1, description = "Première")
+        public void premiere() {
+            compteur++;
+        }
+
+        @Tache(priorite = 2, description = "Deuxième")
+        public void deuxieme() {
+            compteur += 2;
+        }
+
+        @Tache(priorite = 3, description = "Troisième")
+        public void troisieme() {
+            compteur += 3;
+        }
+    }
+
+    private interface Execution {
+        void executer() throws Throwable;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int executions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        TachesMuettes taches = new TachesMuettes();
+
+        List<Method> methodes = new ArrayList<>();
+        for (Method method : TachesMuettes.class.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Tache.class)) {
+                methodes.add(method);
+            }
+        }
+        List<MethodHandle> handles = new ArrayList<>();
+        for (Method method : methodes) {
+            handles.add(MethodHandles.lookup().unreflect(method).bindTo(taches).asType(MethodType.methodType(void.class)));
+        }
+        List<TacheEnregistree> registre = RegistreTaches.scanner(taches).getTaches();
+
+        for (int tour = 0; tour < 3; tour++) {
+            System.out.println(tour == 0 ? "Préchauffage :" : "Mesure " + tour + " :");
+            mesurer("réflexion d'origine", executions / 100, () -> executionReflexive(taches));
+            mesurer("Method.invoke en cache", executions, () -> {
+                for (Method method : methodes) {
+                    method.invoke(taches);
+                }
+            });
+            mesurer("MethodHandle", executions, () -> {
+                for (MethodHandle handle : handles) {
+                    handle.invokeExact();
+                }
+            });
+            mesurer("RegistreTaches", executions, () -> {
+                for (TacheEnregistree tache : registre) {
+                    tache.executer();
+                }
+            });
+            mesurer("appel direct", executions, () -> {
+                taches.premiere();
+                taches.deuxieme();
+                taches.troisieme();
+            });
+        }
+        System.out.println("(compteur " + taches.compteur + ")");
+    }
+
+    // Reprise de l'ancien GestionnaireTaches.executerTaches, sans l'affichage
+    private static void executionReflexive(TachesMuettes taches) throws Exception {
+        List<Method> liste = new ArrayList<>();
+        for (Method method : TachesMuettes.class.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Tache.class)) {
+                liste.add(method);
+            }
+        }
+        liste.sort((m1, m2) -> Integer.compare(
+            m1.getAnnotation(Tache.class).priorite(),
+            m2.getAnnotation(Tache.class).priorite()
+        ));
+        for (Method tache : liste) {
+            tache.getAnnotation(Tache.class).description();
+            tache.invoke(taches);
+        }
+    }
+
+    private static void mesurer(String mode, int iterations, Execution execution) throws Throwable {
+        long debut = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            execution.executer();
+        }
+        long duree = System.nanoTime() - debut;
+        System.out.printf("  %-24s : %9.1f ns par série de 3 tâches%n", mode, (double) duree / iterations);
+    }
+}
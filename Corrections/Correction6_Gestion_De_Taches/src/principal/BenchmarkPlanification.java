@@ -0,0 +1,83 @@
+package principal;
+
+import gestionnaire.Planification;
+import gestionnaire.PlanificateurTaches;
+import gestionnaire.StatistiquesTache;
+import gestionnaire.TacheEnregistree;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tenue en charge du PlanificateurTaches : des milliers de tâches à période fixe, exposées en JMX.
+ * La tâche 0 dure plus que sa période (déclenchements sautés) et la tâche 500 dépasse son délai
+ * maximal (exécution interrompue) ; elles sont seules de leur espèce, car chaque tâche lente occupe
+ * un thread du pool. Le benchmark compare les exécutions obtenues aux
+ * exécutions attendues et affiche le retard de déclenchement du thread d'horloge.
+ * Usage : BenchmarkPlanification [tâches] [période ms] [secondes] [threads]
+ */
+public class BenchmarkPlanification {
+    public static void main(String[] args) throws Exception {
+        int nbTaches = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long periode = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        int secondes = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int nbThreads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+
+        List<StatistiquesTache> statistiques = new ArrayList<>();
+        try (PlanificateurTaches planificateur = new PlanificateurTaches(nbThreads)) {
+            long debut = System.nanoTime();
+            planificateur.exposer(ManagementFactory.getPlatformMBeanServer());
+            for (int i = 0; i < nbTaches; i++) {
+                statistiques.add(planificateur.planifier(tache(i, periode)));
+            }
+            System.out.printf("%d tâches planifiées et exposées en %.0f ms%n", nbTaches, (System.nanoTime() - debut) / 1e6);
+
+            // Première période écartée : les départs y sont étalés
+            Thread.sleep(periode);
+            planificateur.getRetards().reinitialiser();
+            statistiques.forEach(StatistiquesTache::reinitialiser);
+            Thread.sleep(secondes * 1000L);
+
+            long executions = 0, sautees = 0, expirees = 0;
+            for (StatistiquesTache s : statistiques) {
+                executions += s.getExecutions();
+                sautees += s.getSautees();
+                expirees += s.getExpirees();
+            }
+            long attendues = nbTaches * (secondes * 1000L / periode);
+            System.out.printf("Exécutions : %,d sur %,d déclenchements attendus (%,.0f/s), %,d sautées, %,d expirées%n",
+                executions, attendues, executions / (double) secondes, sautees, expirees);
+            System.out.println("Retard de déclenchement : " + planificateur.getRetards());
+            System.out.println("Tâche lente    : " + statistiques.get(0));
+            System.out.println("Tâche bloquée  : " + statistiques.get(Math.min(nbTaches - 1, 500)));
+            System.out.println("Tâche ordinaire: " + statistiques.get(Math.min(nbTaches - 1, 1)));
+        }
+    }
+
+    private static TacheEnregistree tache(int i, long periode) {
+        Runnable action;
+        long delaiMax = 0;
+        if (i == 500) {
+            // Dépasse son délai : attente interrompue par le planificateur
+            delaiMax = periode;
+            action = () -> {
+                try {
+                    Thread.sleep(periode * 10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        } else if (i == 0) {
+            // Dure une fois et demie sa période : un déclenchement sur deux est sauté
+            action = () -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(periode * 3 / 2));
+        } else {
+            // Tâche courte : seul le coût du déclenchement est mesuré
+            action = () -> { };
+        }
+        return new TacheEnregistree("tache" + i, 0, "Tâche " + i, List.of(), "",
+            new Planification(periode, "", delaiMax), action);
+    }
+}
@@ -1,10 +1,29 @@
 package principal;
 
 import gestionnaire.GestionnaireTaches;
+import gestionnaire.PlanificateurTaches;
+import gestionnaire.StatistiquesTache;
+
+import java.lang.management.ManagementFactory;
 
 public class Main {
-    public static void main(String[] args) {
+    // Usage : Main                       (exécution séquentielle, par priorité)
+    //         Main parallele             (exécution parallèle selon les dépendances)
+    //         Main planifie [secondes]   (tâches périodiques, statistiques visibles dans JConsole sous "taches")
+    public static void main(String[] args) throws Exception {
         GestionnaireTaches gestionnaire = new GestionnaireTaches();
-        gestionnaire.executerTaches();
+        if (args.length > 0 && args[0].equals("parallele")) {
+            System.out.println(gestionnaire.executerEnParallele());
+        } else if (args.length > 0 && args[0].equals("planifie")) {
+            int secondes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+            try (PlanificateurTaches planificateur = gestionnaire.planifier(ManagementFactory.getPlatformMBeanServer())) {
+                Thread.sleep(secondes * 1000L);
+                for (StatistiquesTache statistiques : planificateur.getStatistiques()) {
+                    System.out.println(statistiques.getPlanification() + " : " + statistiques);
+                }
+            }
+        } else {
+            gestionnaire.executerTaches();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package processeur;
+
+import modele.Tache;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Processeur d'annotations : à la compilation, génère gestionnaire.IndexTachesGenere, l'index
+ * de toutes les méthodes @Tache des classes compilées. Chaque classe indexée reçoit une petite classe
+ * d'appel dont run() appelle directement la méthode (un switch sur le numéro de tâche) : ni lambda
+ * à amorcer au démarrage, ni réflexion à l'exécution. RegistreTaches utilise cet index s'il est présent et n'a alors plus besoin
+ * de la réflexion pour les classes indexées.
+ *
+ * Compilation en deux temps :
+ *   javac -d proc src/modele/Tache.java src/processeur/ProcesseurTaches.java
+ *   javac -d out -processorpath proc -processor processeur.ProcesseurTaches $(find src -name "*.java")
+ *
+ * Une classe non accessible depuis le paquet gestionnaire, ou ayant une tâche non publique, n'est pas
+ * indexée et reste découverte par réflexion. L'index couvre les classes d'une même compilation,
+ * hormis celles des benchmarks (classe de premier niveau nommée Benchmark...), qui ne font pas partie
+ * de l'application et gardent la liaison par réflexion.
+ * Une méthode @Tache avec paramètres est une erreur de compilation.
+ * Le processeur revendique @Tache : aucun autre processeur n'a à la traiter.
+ */
+public class ProcesseurTaches extends AbstractProcessor {
+    private static final String PAQUET = "gestionnaire";
+    private static final String CLASSE = "IndexTachesGenere";
+
+    // Méthodes @Tache par classe
+    private final Map<TypeElement, List<ExecutableElement>> parClasse = new LinkedHashMap<>();
+    // Classes dont au moins une tâche n'est pas accessible : laissées entièrement à la réflexion
+    private final Set<TypeElement> exclues = new HashSet<>();
+    private boolean genere;
+
+    // Plutôt que @SupportedAnnotationTypes : compilée avec le reste du projet, cette annotation
+    // ne serait revendiquée par aucun processeur (avertissement de -Xlint)
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(Tache.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        for (Element element : env.getElementsAnnotatedWith(Tache.class)) {
+            ExecutableElement methode = (ExecutableElement) element;
+            if (!methode.getParameters().isEmpty()) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Une méthode @Tache ne prend pas de paramètre", methode);
+                continue;
+            }
+            TypeElement classe = (TypeElement) methode.getEnclosingElement();
+            if (estBenchmark(classe)) {
+                continue;
+            }
+            if (!estAccessible(classe) || !methode.getModifiers().contains(Modifier.PUBLIC)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Tâche non publique, classe découverte par réflexion : " + classe + "." + methode.getSimpleName(), methode);
+                exclues.add(classe);
+                continue;
+            }
+            parClasse.computeIfAbsent(classe, c -> new ArrayList<>()).add(methode);
+        }
+        // Génération au premier tour qui trouve des tâches : un fichier créé au dernier tour ne serait
+        // plus compilé avec le reste
+        parClasse.keySet().removeAll(exclues);
+        if (!genere && !parClasse.isEmpty()) {
+            generer();
+            genere = true;
+        }
+        return true;
+    }
+
+    private static boolean estBenchmark(TypeElement classe) {
+        Element premierNiveau = classe;
+        while (premierNiveau.getEnclosingElement() instanceof TypeElement englobante) {
+            premierNiveau = englobante;
+        }
+        return premierNiveau.getSimpleName().toString().startsWith("Benchmark");
+    }
+
+    // Classe publique, ainsi que toutes ses classes englobantes ; les classes internes doivent être statiques
+    private static boolean estAccessible(TypeElement classe) {
+        Element courant = classe;
+        while (courant instanceof TypeElement type) {
+            if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            courant = type.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generer() {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PAQUET).append(";\n\n")
+            .append("import java.util.List;\n")
+            .append("import java.util.Map;\n\n")
+            .append("// Généré par processeur.ProcesseurTaches : ne pas modifier\n")
+            .append("public final class ").append(CLASSE).append(" implements IndexTaches {\n")
+            .append("    private static final Map<Class<?>, Integer> CLASSES = Map.ofEntries(\n");
+        int n = 0;
+        for (TypeElement classe : parClasse.keySet()) {
+            source.append(n++ == 0 ? "" : ",\n")
+                .append("        Map.entry(").append(classe.getQualifiedName()).append(".class, ").append(n).append(")");
+        }
+        source.append("\n    );\n\n")
+            .append("    @Override\n")
+            .append("    public List<TacheEnregistree> taches(Object instance) {\n")
+            .append("        Integer classe = CLASSES.get(instance.getClass());\n")
+            .append("        if (classe == null) {\n")
+            .append("            return null;\n")
+            .append("        }\n")
+            .append("        switch (classe) {\n");
+        n = 0;
+        for (TypeElement classe : parClasse.keySet()) {
+            n++;
+            source.append("            case ").append(n).append(": return taches").append(n)
+                .append("((").append(classe.getQualifiedName()).append(") instance);\n");
+        }
+        source.append("            default: return null;\n")
+            .append("        }\n")
+            .append("    }\n");
+
+        // Par classe : la liste des tâches et une classe d'appel, dont run() appelle directement la méthode.
+        // Une classe d'appel par classe indexée plutôt qu'une lambda par tâche : pas de LambdaMetafactory au démarrage
+        n = 0;
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entree : parClasse.entrySet()) {
+            n++;
+            String classe = entree.getKey().getQualifiedName().toString();
+            List<ExecutableElement> methodes = entree.getValue();
+            source.append("\n    private static List<TacheEnregistree> taches").append(n)
+                .append("(").append(classe).append(" instance) {\n")
+                .append("        return List.of(\n");
+            for (int i = 0; i < methodes.size(); i++) {
+                ExecutableElement methode = methodes.get(i);
+                Tache tache = methode.getAnnotation(Tache.class);
+                source.append("            new TacheEnregistree(").append(chaine(methode.getSimpleName().toString())).append(", ")
+                    .append(tache.priorite()).append(", ").append(chaine(tache.description())).append(", List.of(");
+                String[] dependances = tache.dependances();
+                for (int d = 0; d < dependances.length; d++) {
+                    source.append(d == 0 ? "" : ", ").append(chaine(dependances[d]));
+                }
+                source.append("), ").append(chaine(tache.groupe())).append(", ").append(planification(tache))
+                    .append(", new Appels").append(n)
+                    .append("(instance, ").append(i).append("))").append(i < methodes.size() - 1 ? ",\n" : "\n");
+            }
+            source.append("        );\n    }\n\n")
+                .append("    private static final class Appels").append(n).append(" implements Runnable {\n")
+                .append("        private final ").append(classe).append(" instance;\n")
+                .append("        private final int tache;\n\n")
+                .append("        Appels").append(n).append("(").append(classe).append(" instance, int tache) {\n")
+                .append("            this.instance = instance;\n")
+                .append("            this.tache = tache;\n")
+                .append("        }\n\n")
+                .append("        @Override\n")
+                .append("        public void run() {\n")
+                .append("            switch (tache) {\n");
+            for (int i = 0; i < methodes.size(); i++) {
+                ExecutableElement methode = methodes.get(i);
+                boolean statique = methode.getModifiers().contains(Modifier.STATIC);
+                source.append("                case ").append(i).append(" -> ").append(statique ? classe : "instance")
+                    .append(".").append(methode.getSimpleName()).append("();\n");
+            }
+            source.append("            }\n")
+                .append("        }\n")
+                .append("    }\n");
+        }
+        source.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(PAQUET + "." + CLASSE,
+                parClasse.keySet().toArray(new Element[0])).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Génération de l'index impossible : " + e);
+        }
+    }
+
+    private static String planification(Tache tache) {
+        if (tache.periodeMillis() == 0 && tache.cron().isEmpty() && tache.delaiMaxMillis() == 0) {
+            return "Planification.AUCUNE";
+        }
+        return "new Planification(" + tache.periodeMillis() + "L, " + chaine(tache.cron()) + ", "
+            + tache.delaiMaxMillis() + "L)";
+    }
+
+    // Littéral Java ; les caractères non ASCII sont échappés pour ne pas dépendre de l'encodage du compilateur.
+    // Pas d'échappement Unicode pour les caractères de contrôle : javac les traduit avant l'analyse, et celui
+    // d'un retour chariot deviendrait une vraie fin de ligne au milieu du littéral. Octal sur 3 chiffres.
+    private static String chaine(String valeur) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : valeur.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\%03o", (int) c));
+                    } else if (c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}